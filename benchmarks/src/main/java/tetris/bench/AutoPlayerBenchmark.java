@@ -0,0 +1,60 @@
+/**
+ * Time the autoplayer needs to place one piece, planning included
+ */
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.AutoPlayer;
+import tetris.Evaluator;
+import tetris.GameEngine;
+import tetris.Input;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoPlayerBenchmark {
+
+	@Param({"true", "false"})
+	public boolean lookahead;
+
+	private GameEngine engine;
+	private AutoPlayer player;
+	private long seed;
+
+	@Setup
+	public void setup(){
+		this.player = new AutoPlayer(new Evaluator(), lookahead);
+		restart();
+	}
+	private void restart(){
+		this.engine = new GameEngine(seed++);
+		engine.step(Input.START);
+	}
+	@Benchmark
+	public long piece(){
+		long count = engine.getPieceCount();
+		while(engine.getPieceCount() == count)
+		{
+			if(engine.hasGameEnded())
+				restart();
+			engine.step(player.next(engine));
+		}
+		return engine.getPieceCount();
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Collision, locking and line clearing on the board, plus the piece tile lookup.
+ * legacyCanPieceInsert is the old Piece[][] scan, kept as the baseline.
+ * legacyDropDistance is the old row by row ghost search.
+ */
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.BoardModel;
+import tetris.Piece;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	private static final Piece[] pieces = Piece.values();
+	private static final int testMask = 1023;	//number of precomputed positions - 1
+
+	@Param({"EMPTY", "HALF", "NEAR_TOP", "FULL_LINES"})
+	public String fixture;
+
+	private BoardModel template, scratch;
+	private Piece[][] legacy;
+	private int[] tests;		//piece, column, row and rotation packed into one int
+	private int[] landings;		//piece and rotation with the column/row it rests on
+	private int[] drops;		//piece and rotation with the column and the top row
+	private int next;
+
+	@Setup
+	public void setup(){
+		this.template = Fixture.valueOf(fixture).build();
+		this.scratch = new BoardModel();
+		this.legacy = Fixture.toTiles(template);
+		this.tests = new int[testMask + 1];
+		this.landings = new int[testMask + 1];
+		this.drops = new int[testMask + 1];
+		Random random = new Random(42);
+
+		for(int i = 0; i <= testMask; i++)
+		{
+			tests[i] = pack(random.nextInt(pieces.length), random.nextInt(BoardModel.numOfColums + 2) - 1,
+					random.nextInt(BoardModel.totalNumRows), random.nextInt(4));
+
+			Piece type = pieces[random.nextInt(pieces.length)];
+			int rotation = random.nextInt(4);
+			int col = -type.getSpaceLeft(rotation) + random.nextInt(BoardModel.numOfColums
+					- (type.getDimension() - type.getSpaceLeft(rotation) - type.getSpaceRight(rotation)));
+			int row = -type.getSpaceTop(rotation);
+			drops[i] = pack(type.ordinal(), col, row, rotation);
+			while(template.canPieceInsert(type, col, row + 1, rotation))
+			{
+				row++;
+			}
+			landings[i] = pack(type.ordinal(), col, row, rotation);
+		}
+	}
+	private static int pack(int piece, int col, int row, int rotation){
+		return piece | ((col + 4) << 4) | ((row + 4) << 12) | (rotation << 20);
+	}
+	private static Piece piece(int test){
+		return pieces[test & 0xF];
+	}
+	private static int column(int test){
+		return ((test >> 4) & 0xFF) - 4;
+	}
+	private static int row(int test){
+		return ((test >> 12) & 0xFF) - 4;
+	}
+	private static int rotation(int test){
+		return test >> 20;
+	}
+	@Benchmark
+	public boolean canPieceInsert(){
+		int test = tests[next++ & testMask];
+		return template.canPieceInsert(piece(test), column(test), row(test), rotation(test));
+	}
+	@Benchmark
+	public boolean legacyCanPieceInsert(){
+		int test = tests[next++ & testMask];
+		Piece type = piece(test);
+		int x = column(test), y = row(test), rotation = rotation(test);
+
+		if(x < -type.getSpaceLeft(rotation) ||
+				x + type.getDimension() - type.getSpaceRight(rotation) >= BoardModel.numOfColums)
+			return false;
+
+		if(y < -type.getSpaceTop(rotation) ||
+				y + type.getDimension() - type.getSpaceBottom(rotation) >= BoardModel.totalNumRows)
+			return false;
+
+		for(int col = 0; col < type.getDimension(); col++)
+		{
+			for(int row = 0; row < type.getDimension(); row++)
+			{
+				if(type.isTilePresent(col, row, rotation) && legacy[y + row][x + col] != null)
+					return false;
+			}
+		}
+		return true;
+	}
+	@Benchmark
+	public int dropDistance(){
+		int drop = drops[next++ & testMask];
+		return template.dropDistance(piece(drop), column(drop), row(drop), rotation(drop));
+	}
+	@Benchmark
+	public int legacyDropDistance(){
+		int drop = drops[next++ & testMask];
+		Piece type = piece(drop);
+		int x = column(drop), y = row(drop), rotation = rotation(drop);
+
+		int distance = 0;
+		while(template.canPieceInsert(type, x, y + distance + 1, rotation))
+		{
+			distance++;
+		}
+		return distance;
+	}
+	/**
+	 * Cost of restoring the board, to subtract from the two benchmarks below
+	 */
+	@Benchmark
+	public BoardModel copy(){
+		scratch.copyFrom(template);
+		return scratch;
+	}
+	@Benchmark
+	public BoardModel addGamePiece(){
+		int landing = landings[next++ & testMask];
+		scratch.copyFrom(template);
+		scratch.addGamePiece(piece(landing), column(landing), row(landing), rotation(landing));
+		return scratch;
+	}
+	@Benchmark
+	public int lineScan(){
+		scratch.copyFrom(template);
+		return scratch.lineScan();
+	}
+	@Benchmark
+	public boolean isTilePresent(){
+		int test = tests[next++ & testMask];
+		Piece type = piece(test);
+		int x = Math.floorMod(column(test), type.getDimension());
+		int y = row(test) % type.getDimension();
+		return type.isTilePresent(x, y, rotation(test));
+	}
+}
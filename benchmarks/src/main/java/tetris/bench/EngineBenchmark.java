@@ -0,0 +1,47 @@
+/**
+ * Runs one million pieces through the engine without any display
+ */
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.GameEngine;
+import tetris.Input;
+import tetris.RandomStrategy;
+import tetris.Strategy;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EngineBenchmark {
+
+	private static final long pieceTarget = 1000000L;
+
+	@Benchmark
+	public long millionPieces(){
+		Strategy strategy = new RandomStrategy(42);
+		GameEngine engine = new GameEngine(7);
+		long pieces = 0;
+
+		while(pieces < pieceTarget)
+		{
+			engine.step(Input.START);
+			while(!engine.hasGameEnded())	//random wiggles on the way down
+			{
+				engine.step(strategy.next(engine));
+			}
+			pieces += engine.getPieceCount();
+		}
+		return pieces;
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Boards the benchmarks run against. Every fixture is built from a fixed seed
+ * so runs before and after a change see exactly the same stacks.
+ */
+package tetris.bench;
+
+import java.util.Random;
+
+import tetris.BoardModel;
+import tetris.Piece;
+
+public enum Fixture{
+	EMPTY,			//nothing locked yet
+	HALF,			//lower half filled, one hole per row
+	NEAR_TOP,		//stack a few rows under the spawn area
+	FULL_LINES;		//every other row of the lower half is full
+
+	/**
+	 * Builds a fresh board for the fixture
+	 * @return -- board
+	 */
+	public BoardModel build(){
+		Random random = new Random(ordinal() * 31L + 7L);
+		BoardModel board = new BoardModel();
+
+		switch(this) {
+
+		case EMPTY:
+			break;
+
+		case HALF:
+			fill(board, BoardModel.totalNumRows / 2, random, false);
+			break;
+
+		case NEAR_TOP:
+			fill(board, BoardModel.passiveNumRows + 3, random, false);
+			break;
+
+		case FULL_LINES:
+			fill(board, BoardModel.totalNumRows / 2, random, true);
+			break;
+		}
+		return board;
+	}
+	/**
+	 * Fills every row from the given one to the floor
+	 * @param board -- target board
+	 * @param top -- first filled row
+	 * @param random -- source of the holes and colors
+	 * @param full -- if every other row is left without a hole
+	 */
+	private static void fill(BoardModel board, int top, Random random, boolean full){
+		Piece[] pieces = Piece.values();
+
+		for(int row = top; row < BoardModel.totalNumRows; row++)
+		{
+			int hole = (full && (row & 1) == 0) ? -1 : random.nextInt(BoardModel.numOfColums);
+			for(int col = 0; col < BoardModel.numOfColums; col++)
+			{
+				if(col != hole)
+					board.setTile(col, row, pieces[random.nextInt(pieces.length)]);
+			}
+		}
+	}
+	/**
+	 * Copies the board into the old Piece[][] layout
+	 * @param board -- board to copy
+	 * @return -- tiles indexed [row][column]
+	 */
+	public static Piece[][] toTiles(BoardModel board){
+		Piece[][] tiles = new Piece[BoardModel.totalNumRows][BoardModel.numOfColums];
+		for(int row = 0; row < BoardModel.totalNumRows; row++)
+		{
+			for(int col = 0; col < BoardModel.numOfColums; col++)
+			{
+				tiles[row][col] = board.getTile(col, row);
+			}
+		}
+		return tiles;
+	}
+}
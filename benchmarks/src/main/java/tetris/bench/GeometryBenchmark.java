@@ -0,0 +1,100 @@
+/**
+ * Cost of one piece on boards of growing size: the spawn check, the drop, the
+ * lock and the line scan, then the tiles are taken out again so every call
+ * sees the same board. The board has a floor of a fixed height with enough
+ * holes per row that no piece completes a line, so the score only shows what
+ * the board size adds to a piece, it should stay flat.
+ */
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.BoardModel;
+import tetris.Piece;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+	private static final Piece[] pieces = Piece.values();
+	private static final int moveMask = 1023;	//number of precomputed moves - 1
+	private static final int floorRows = 8;
+	private static final int minHoles = 5;		//more than a piece can fill in one row
+
+	@Param({"10", "64", "256"})
+	public int columns;
+
+	@Param({"20", "200", "2000"})
+	public int rows;
+
+	private BoardModel board;
+	private int[] moves;		//piece, rotation and column
+	private int next;
+
+	@Setup
+	public void setup(){
+		this.board = new BoardModel(columns, rows);
+		this.moves = new int[moveMask + 1];
+		Random random = new Random(42);
+
+		for(int row = board.getHeight() - floorRows; row < board.getHeight(); row++)
+		{
+			for(int col = 0; col < columns; col++)
+			{
+				if(random.nextInt(10) < 6)
+					board.setTile(col, row, pieces[random.nextInt(pieces.length)]);
+			}
+			for(int col = 0; board.getRowFill(row) > columns - minHoles; col++)
+			{
+				board.setTile(col, row, null);
+			}
+		}
+		board.lineScan();
+
+		for(int i = 0; i <= moveMask; i++)
+		{
+			Piece type = pieces[random.nextInt(pieces.length)];
+			int rotation = random.nextInt(4);
+			int col = -type.getSpaceLeft(rotation) + random.nextInt(columns
+					- (type.getDimension() - type.getSpaceLeft(rotation) - type.getSpaceRight(rotation)));
+			moves[i] = type.ordinal() | (rotation << 4) | (col << 8);
+		}
+	}
+	@Benchmark
+	public int piece(){
+		int move = moves[next++ & moveMask];
+		Piece type = pieces[move & 0xF];
+		int rotation = (move >> 4) & 0x3;
+		int col = move >> 8;
+		int row = -type.getSpaceTop(rotation);
+
+		if(!board.canPieceInsert(type, col, row, rotation))
+			return -1;
+		row += board.dropDistance(type, col, row, rotation);
+		board.addGamePiece(type, col, row, rotation);
+		int lines = board.lineScan();
+
+		for(int cell = 0; cell < type.getCellCount(rotation); cell++)	//back to the floor alone
+		{
+			board.setTile(col + type.getCellX(rotation, cell), row + type.getCellY(rotation, cell), null);
+		}
+		return row + lines;
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Cost of the latency histograms: one record, and one engine step with and
+ * without its hot paths timed
+ */
+package tetris.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.GameEngine;
+import tetris.GameMetrics;
+import tetris.Input;
+import tetris.LatencyHistogram;
+import tetris.RandomStrategy;
+import tetris.Strategy;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MetricsBenchmark {
+
+	@Param({"false", "true"})
+	public boolean timed;
+
+	private LatencyHistogram histogram = new LatencyHistogram("bench");
+	private long[] values = new long[1024];
+	private int next;
+	private GameEngine engine;
+	private Strategy strategy;
+
+	@Setup
+	public void setup(){
+		SplittableRandom random = new SplittableRandom(3);
+		for(int i = 0; i < values.length; i++)
+		{
+			values[i] = (long)Math.exp(random.nextDouble(4, 18));	//50 ns to 65 ms
+		}
+		this.engine = new GameEngine(7);
+		this.strategy = new RandomStrategy(42);
+		if(timed)
+			engine.setMetrics(new GameMetrics());
+	}
+	@Benchmark
+	public void record(){
+		histogram.record(values[next++ & (values.length - 1)]);
+	}
+	@Benchmark
+	public long step(){
+		if(!engine.isRunning())
+			engine.step(Input.START);
+		engine.step(strategy.next(engine));
+		return engine.getPieceCount();
+	}
+}
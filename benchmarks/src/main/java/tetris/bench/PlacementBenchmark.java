@@ -0,0 +1,54 @@
+/**
+ * Breadth first search of every resting place of a piece
+ */
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.BoardModel;
+import tetris.Piece;
+import tetris.PlacementGenerator;
+import tetris.Placements;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+
+	private static final Piece[] pieces = Piece.values();
+
+	@Param({"EMPTY", "HALF", "NEAR_TOP", "FULL_LINES"})
+	public String fixture;
+
+	private BoardModel board;
+	private PlacementGenerator generator;
+	private Placements placements;
+	private int next;
+
+	@Setup
+	public void setup(){
+		this.board = Fixture.valueOf(fixture).build();
+		this.generator = new PlacementGenerator();
+		this.placements = PlacementGenerator.newBuffer();
+	}
+	@Benchmark
+	public int generate(){
+		Piece type = pieces[next++ % pieces.length];
+		return generator.generate(board, type, 0, -type.getSpaceTop(0), 0, placements);
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Paints the game board and the side menu into an off screen image,
+ * so the drawing code can be measured without a display
+ */
+package tetris.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.GameBoard;
+import tetris.GameEngine;
+import tetris.Input;
+import tetris.Menu;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+	@Param({"EMPTY", "HALF", "NEAR_TOP", "FULL_LINES"})
+	public String fixture;
+
+	private GameBoard board;
+	private Menu menu;
+	private BufferedImage boardImage, menuImage;
+
+	@Setup
+	public void setup(){
+		GameEngine engine = new GameEngine(1);
+		engine.step(Input.START);	//a falling piece and its ghost over the fixture
+		engine.getBoard().copyFrom(Fixture.valueOf(fixture).build());
+		engine.publish();
+
+		this.board = new GameBoard(engine);
+		this.menu = new Menu(engine);
+		board.setSize(board.getPreferredSize());
+		menu.setSize(menu.getPreferredSize());
+
+		this.boardImage = new BufferedImage(board.getWidth(), board.getHeight(), BufferedImage.TYPE_INT_RGB);
+		this.menuImage = new BufferedImage(menu.getWidth(), menu.getHeight(), BufferedImage.TYPE_INT_RGB);
+	}
+	@Benchmark
+	public BufferedImage paintBoard(){
+		Graphics2D g = boardImage.createGraphics();
+		board.paintComponent(g);
+		g.dispose();
+		return boardImage;
+	}
+	@Benchmark
+	public BufferedImage paintMenu(){
+		Graphics2D g = menuImage.createGraphics();
+		menu.paintComponent(g);
+		g.dispose();
+		return menuImage;
+	}
+}
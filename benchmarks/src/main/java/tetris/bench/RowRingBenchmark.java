@@ -0,0 +1,98 @@
+/**
+ * Sustained line clears and garbage on a board that is half full of garbage
+ * rows. clearBottom fills the hole of the bottom row, clears it and puts a new
+ * garbage row on top of the stack with single tiles, so the stack keeps its
+ * height and every clear has the whole stack above it. garbageCycle pushes a
+ * garbage row in at the bottom and clears the top one, the way a player digs
+ * through garbage. With the rows in a ring neither moves the stack in memory,
+ * what still grows with it is the hash, every tile that changed row gets its
+ * key XORed out at the old row and in at the new one.
+ */
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.BoardModel;
+import tetris.Piece;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowRingBenchmark {
+
+	private static final int holeMask = 1023;	//number of precomputed holes - 1
+
+	@Param({"10", "64"})
+	public int columns;
+
+	@Param({"20", "200", "2000"})
+	public int rows;
+
+	private BoardModel board;
+	private int[] holes;
+	private int next, depth;
+
+	@Setup
+	public void setup(){
+		this.board = new BoardModel(columns, rows);
+		this.holes = new int[holeMask + 1];
+		Random random = new Random(42);
+		for(int i = 0; i <= holeMask; i++)
+		{
+			holes[i] = random.nextInt(columns);
+		}
+		this.depth = rows / 2;
+		for(int i = 0; i < depth; i++)
+		{
+			board.addGarbage(1, holes[next++ & holeMask], Piece.I);
+		}
+	}
+	/**
+	 * Gets the hole of a row
+	 */
+	private int findHole(int row){
+		for(int col = 0; ; col++)
+		{
+			if(!board.isInhabited(col, row))
+				return col;
+		}
+	}
+	@Benchmark
+	public int clearBottom(){
+		int bottom = board.getHeight() - 1;
+		board.setTile(findHole(bottom), bottom, Piece.O);
+		int lines = board.lineScan();
+
+		int row = board.getHeight() - depth;	//right on top of the stack
+		int hole = holes[next++ & holeMask];
+		for(int col = 0; col < columns; col++)
+		{
+			if(col != hole)
+				board.setTile(col, row, Piece.I);
+		}
+		return lines + board.lineScan();	//scanned on its own, the way every lock is
+	}
+	@Benchmark
+	public int garbageCycle(){
+		board.addGarbage(1, holes[next++ & holeMask], Piece.I);
+		int row = board.getHeight() - depth - 1;	//top of the stack
+		board.setTile(findHole(row), row, Piece.O);
+		return board.lineScan();
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * State messages of a game server session, the deltas of StateEncoder against
+ * the whole state every tick. A random bot plays and the piece falls a row on
+ * every step, so every step has something to send, the worst case of a
+ * server tick. The encode benchmarks run a step and write its message, step
+ * alone is the cost of the game under them. The decode benchmarks read back a
+ * stream of messages recorded in setup, and setup prints how many bytes per
+ * step each stream took.
+ */
+package tetris.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.BoardModel;
+import tetris.GameEngine;
+import tetris.GameSession;
+import tetris.Input;
+import tetris.Piece;
+import tetris.RandomStrategy;
+import tetris.StateDecoder;
+import tetris.StateEncoder;
+import tetris.Strategy;
+import tetris.VirtualClock;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StateCodecBenchmark {
+
+	private static final int recordedSteps = 4096;
+	private static final int fullHeaderBytes = 30;		//length up to the board rows of the whole state
+
+	@Param({"10", "64"})
+	public int columns;
+
+	@Param({"20", "200"})
+	public int rows;
+
+	private GameEngine engine;
+	private Strategy strategy;
+	private StateEncoder encoder;
+	private ByteBuffer out;
+
+	private ByteBuffer deltas, fulls;	//recorded streams
+	private StateDecoder decoder;
+	private byte[] colors;
+	private int frame, score, lines, level, flags, piece, next, column, row, rotation;
+
+	@Setup
+	public void setup(){
+		this.engine = new GameEngine(7, new VirtualClock(), columns, rows);
+		this.strategy = new RandomStrategy(42);
+		this.encoder = new StateEncoder();
+		this.out = ByteBuffer.allocateDirect(GameSession.maxMessageBytes(columns, rows));
+
+		GameEngine recorded = new GameEngine(11, new VirtualClock(), columns, rows);
+		Strategy moves = new RandomStrategy(43);
+		StateEncoder recorder = new StateEncoder();
+		this.deltas = ByteBuffer.allocateDirect(recordedSteps * GameSession.maxMessageBytes(columns, rows));
+		this.fulls = ByteBuffer.allocateDirect(recordedSteps * (fullHeaderBytes + columns * recorded.getBoard().getHeight()));
+		for(int i = 0; i < recordedSteps; i++)
+		{
+			step(recorded, moves);
+			recorder.encode(recorded, deltas);
+			encodeFull(recorded, fulls);
+		}
+		deltas.flip();
+		fulls.flip();
+		System.out.printf("%n%dx%d: %.1f bytes per step as deltas, %.1f as whole states%n", columns, rows,
+				deltas.limit() / (double)recordedSteps, fulls.limit() / (double)recordedSteps);
+		this.decoder = new StateDecoder();
+		this.colors = new byte[columns * recorded.getBoard().getHeight()];
+	}
+	/**
+	 * Runs one step of the bot, a new game once the last one ended
+	 */
+	private static void step(GameEngine engine, Strategy strategy){
+		if(!engine.isRunning())
+			engine.step(Input.START);
+		else
+			engine.step(strategy.next(engine));
+	}
+	/**
+	 * Writes the whole state, the way the server did before the deltas
+	 */
+	private static void encodeFull(GameEngine engine, ByteBuffer out){
+		BoardModel board = engine.getBoard();
+		Piece piece = engine.getPiece(), next = engine.getNextPiece();
+		int flags = (engine.isPaused() ? 1 : 0) | (engine.hasGameEnded() ? 2 : 0) | (engine.isNewGame() ? 4 : 0);
+		out.putInt(fullHeaderBytes - 4 + board.getWidth() * board.getHeight()).putInt((int)engine.getFrameCount())
+				.putInt(engine.getScore()).putInt(engine.getLines()).putShort((short)engine.getLevel()).put((byte)flags)
+				.put((byte)((piece == null) ? 0 : piece.ordinal() + 1)).put((byte)((next == null) ? 0 : next.ordinal() + 1))
+				.putShort((short)engine.getColumn()).putShort((short)engine.getRow()).put((byte)engine.getRotation())
+				.putShort((short)board.getWidth()).putShort((short)board.getHeight());
+		board.putColors(out);
+	}
+	@Benchmark
+	public long step(){
+		step(engine, strategy);
+		return engine.getVersion();
+	}
+	@Benchmark
+	public int encodeDelta(){
+		step(engine, strategy);
+		out.clear();
+		encoder.encode(engine, out);
+		return out.position();
+	}
+	@Benchmark
+	public int encodeFull(){
+		step(engine, strategy);
+		out.clear();
+		encodeFull(engine, out);
+		return out.position();
+	}
+	@Benchmark
+	public int decodeDelta(){
+		if(!deltas.hasRemaining())		//the stream starts with a snapshot
+			deltas.rewind();
+		decoder.decode(deltas);
+		return decoder.getFrame();
+	}
+	@Benchmark
+	public int decodeFull(){
+		if(!fulls.hasRemaining())
+			fulls.rewind();
+		fulls.getInt();
+		this.frame = fulls.getInt();
+		this.score = fulls.getInt();
+		this.lines = fulls.getInt();
+		this.level = fulls.getShort();
+		this.flags = fulls.get();
+		this.piece = fulls.get();
+		this.next = fulls.get();
+		this.column = fulls.getShort();
+		this.row = fulls.getShort();
+		this.rotation = fulls.get();
+		fulls.getShort();
+		fulls.getShort();
+		fulls.get(colors);
+		return frame;
+	}
+}
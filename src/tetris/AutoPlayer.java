@@ -0,0 +1,280 @@
+/**
+ * Plays the game by itself. Every reachable placement of the current piece is
+ * scored together with the best straight drop of the next piece, and the moves
+ * to the best one are sent through GameEngine.input, the same way the keys are.
+ * Headless games use it as a Strategy, the Swing window calls act once a frame.
+ * Lookahead scores and chosen placements are cached in a transposition table.
+ */
+package tetris;
+
+public class AutoPlayer implements Strategy {
+
+	private PlacementGenerator generator = new PlacementGenerator();
+	private Placements placements = PlacementGenerator.newBuffer();
+	private Evaluator evaluator;
+	private boolean lookahead;
+	private TranspositionTable table;
+
+	private BoardModel first = new BoardModel();	//board after the current piece, made again for boards of another size
+	private BoardModel second = new BoardModel();	//board after the next piece
+
+	private Input[] path = new Input[0];
+	private int[] pathColumns = new int[1];	//position before each move
+	private int[] pathRows = new int[1];
+	private int[] pathRotations = new int[1];
+	private int pathLength, pathIndex;
+	private Piece plannedPiece;
+	private long plannedCount = -1;
+	private boolean softDropping;
+
+	/**
+	 * Creates an autoplayer with the default weights and a one piece lookahead
+	 */
+	public AutoPlayer(){
+		this(new Evaluator(), true);
+	}
+	/**
+	 * Creates an autoplayer with a 1 MB transposition table
+	 * @param evaluator -- board scoring
+	 * @param lookahead -- if the next piece is taken into account
+	 */
+	public AutoPlayer(Evaluator evaluator, boolean lookahead){
+		this(evaluator, lookahead, new TranspositionTable(1L << 20));
+	}
+	/**
+	 * Creates an autoplayer
+	 * @param evaluator -- board scoring
+	 * @param lookahead -- if the next piece is taken into account
+	 * @param table -- cache of scores and placements, may be shared between games of one thread
+	 */
+	public AutoPlayer(Evaluator evaluator, boolean lookahead, TranspositionTable table){
+		this.evaluator = evaluator;
+		this.lookahead = lookahead;
+		this.table = table;
+	}
+	/**
+	 * Gets the transposition table
+	 * @return -- table
+	 */
+	public TranspositionTable getTable(){
+		return table;
+	}
+	/**
+	 * Sends every move up to the next gravity step, gravity is left to the engine step
+	 */
+	@Override
+	public Input next(GameEngine engine){
+		if(!engine.isRunning())
+			return null;
+
+		sync(engine);
+		while(pathIndex < pathLength && path[pathIndex] != null)
+		{
+			engine.input(path[pathIndex++]);
+		}
+		return null;
+	}
+	/**
+	 * Sends at most one move per call, so the Swing window shows the bot at
+	 * normal speed. Once the piece is lined up it is soft dropped.
+	 * @param engine -- game being played
+	 */
+	public void act(GameEngine engine){
+		if(!engine.isRunning())
+			return;
+
+		sync(engine);
+		if(pathIndex < pathLength && path[pathIndex] != null)
+			engine.input(path[pathIndex++]);
+		else if(!softDropping && pathIndex < pathLength && noMovesLeft())
+		{
+			engine.input(Input.SOFT_DROP);
+			softDropping = true;
+		}
+	}
+	/**
+	 * Lets go of the soft drop, used when the player takes over again
+	 * @param engine -- game being played
+	 */
+	public void release(GameEngine engine){
+		if(softDropping)
+		{
+			engine.input(Input.SOFT_DROP_RELEASE);
+			softDropping = false;
+		}
+	}
+	/**
+	 * Checks if only gravity steps are left on the path
+	 */
+	private boolean noMovesLeft(){
+		for(int i = pathIndex; i < pathLength; i++)
+		{
+			if(path[i] != null)
+				return false;
+		}
+		return true;
+	}
+	/**
+	 * Checks if the piece is where the plan expects it before a move
+	 */
+	private boolean at(GameEngine engine, int index){
+		return engine.getColumn() == pathColumns[index] && engine.getRow() == pathRows[index]
+				&& engine.getRotation() == pathRotations[index];
+	}
+	/**
+	 * Follows gravity along the path and plans again once the piece is new
+	 * or is no longer where the plan expects it
+	 */
+	private void sync(GameEngine engine){
+		while(pathIndex < pathLength && path[pathIndex] == null && at(engine, pathIndex + 1))
+		{
+			pathIndex++;
+		}
+		if(engine.getPiece() != plannedPiece || engine.getPieceCount() != plannedCount || !at(engine, pathIndex))
+		{
+			release(engine);
+			plan(engine);
+		}
+	}
+	/**
+	 * Picks the best placement of the current piece and stores the moves to it
+	 * @param engine -- game being played
+	 */
+	private void plan(GameEngine engine){
+		BoardModel board = engine.getBoard();
+		Piece type = engine.getPiece();
+		Piece next = lookahead ? engine.getNextPiece() : null;
+		if(first.getWidth() != board.getWidth() || first.getHeight() != board.getHeight())
+		{
+			this.first = new BoardModel(board.getWidth(), board.getActiveRows());
+			this.second = new BoardModel(board.getWidth(), board.getActiveRows());
+		}
+
+		this.plannedPiece = type;
+		this.plannedCount = engine.getPieceCount();
+		this.pathIndex = 0;
+		this.pathLength = 0;
+		pathColumns[0] = engine.getColumn();
+		pathRows[0] = engine.getRow();
+		pathRotations[0] = engine.getRotation();
+
+		int count = generator.generate(board, type, engine.getColumn(), engine.getRow(), engine.getRotation(), placements);
+		int best = -1, bestPlacement = -1;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		table.newSearch();
+
+		boolean spawned = engine.getColumn() == board.getSpawnColumn(type) && engine.getRow() == type.getRowGenerate()
+				&& engine.getRotation() == 0;	//choices are only cached from the spawn point
+		long key = board.getHash() ^ Zobrist.current(type) ^ ((next == null) ? 0 : Zobrist.next(next));
+		int depth = (next == null) ? 1 : 2;
+
+		if(spawned && table.probe(key, depth))
+		{
+			int placement = table.getPlacement();
+			for(int i = 0; i < count && best < 0; i++)
+			{
+				if(TranspositionTable.packPlacement(placements.getColumn(i), placements.getRow(i), placements.getRotation(i)) == placement)
+					best = i;
+			}
+		}
+
+		for(int i = 0; i < count && best < 0; i++)
+		{
+			first.copyFrom(board);
+			first.addGamePiece(type, placements.getColumn(i), placements.getRow(i), placements.getRotation(i));
+			int lines = first.lineScan();
+
+			double score = (next == null) ? evaluator.evaluate(first, lines) : bestDrop(first, next, lines);
+			if(score > bestScore)
+			{
+				bestScore = score;
+				bestPlacement = i;
+			}
+		}
+		if(best < 0)
+		{
+			if(bestPlacement < 0)
+				return;
+			best = bestPlacement;
+			if(spawned)
+				table.store(key, (float)bestScore, TranspositionTable.packPlacement(placements.getColumn(best),
+						placements.getRow(best), placements.getRotation(best)), depth);
+		}
+
+		if(path.length < generator.getMaxPathLength())
+		{
+			this.path = new Input[generator.getMaxPathLength()];
+			this.pathColumns = new int[path.length + 1];
+			this.pathRows = new int[path.length + 1];
+			this.pathRotations = new int[path.length + 1];
+			pathColumns[0] = engine.getColumn();
+			pathRows[0] = engine.getRow();
+			pathRotations[0] = engine.getRotation();
+		}
+		this.pathLength = generator.getPath(placements, best, path);
+		for(int i = 0; i < pathLength; i++)	//positions along the way
+		{
+			int col = pathColumns[i], row = pathRows[i], rotation = pathRotations[i];
+			Input move = path[i];
+
+			if(move == null)
+				row++;
+			else if(move == Input.LEFT)
+				col--;
+			else if(move == Input.RIGHT)
+				col++;
+			else
+			{
+				rotation = (move == Input.ROTATE_LEFT) ? ((rotation == 0) ? 3 : rotation - 1) : ((rotation == 3) ? 0 : rotation + 1);
+				col = board.clampColumn(type, col, rotation);
+				row = board.clampRow(type, row, rotation);
+			}
+			pathColumns[i + 1] = col;
+			pathRows[i + 1] = row;
+			pathRotations[i + 1] = rotation;
+		}
+	}
+	/**
+	 * Scores the best straight drop of the next piece. A full search for the
+	 * next piece costs far more and rarely changes the choice.
+	 * @param board -- board after the current piece
+	 * @param next -- next piece
+	 * @param lines -- lines the current piece completed
+	 * @return -- best score, or the score of the board alone if nothing fits
+	 */
+	private double bestDrop(BoardModel board, Piece next, int lines){
+		long key = board.getHash() ^ Zobrist.next(next);	//cached without the lines, they only add a constant
+		if(table.probe(key, 1))
+			return table.getScore() + evaluator.getLineWeight() * lines;
+
+		double best = Double.NEGATIVE_INFINITY;
+
+		for(int rotation = 0; rotation < 4; rotation++)
+		{
+			if(next.getShapeClass(rotation) != rotation)	//same tiles as an earlier rotation
+				continue;
+
+			int row = -next.getSpaceTop(rotation);
+			int last = board.getWidth() - next.getDimension() + next.getSpaceRight(rotation);
+			for(int col = -next.getSpaceLeft(rotation); col < last; col++)
+			{
+				if(!board.canPieceInsert(next, col, row, rotation))
+					continue;
+
+				int landing = row + board.dropDistance(next, col, row, rotation);
+				second.copyFrom(board);
+				second.addGamePiece(next, col, landing, rotation);
+				int more = second.lineScan();
+
+				double score = evaluator.evaluate(second, more);
+				if(score > best)
+					best = score;
+			}
+		}
+		if(best == Double.NEGATIVE_INFINITY)
+			best = evaluator.evaluate(board, 0);
+
+		table.store(key, (float)best, TranspositionTable.noPlacement, 1);
+		return best + evaluator.getLineWeight() * lines;
+	}
+}
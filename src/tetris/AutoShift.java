@@ -0,0 +1,167 @@
+/**
+ * Delayed auto shift and auto repeat for the left and right keys. The window
+ * only reports when a key goes down and up, the repeats are timed here on the
+ * game loop from the time of the press, so they do not depend on the auto
+ * repeat of the operating system. A press moves the piece once at once, after
+ * the delay it moves again at the repeat rate, a repeat rate of 0 moves it to
+ * the wall. The key pressed last wins while both are held. Repeated presses of
+ * a held key and a release followed right away by a press(how X11 reports auto
+ * repeat) are filtered out.
+ */
+package tetris;
+
+public class AutoShift {
+
+	private static final long filterNanos = 2000000L;	//release and press closer than 2 ms are an OS repeat
+
+	private long delayNanos, repeatNanos;
+	private boolean leftHeld, rightHeld;
+	private long leftReleased = Long.MIN_VALUE, rightReleased = Long.MIN_VALUE;	//MIN_VALUE = never released
+	private Input active;			//LEFT, RIGHT or null
+	private long pressTime, nextMove;
+	private boolean tapPending, tapped;
+
+	/**
+	 * Creates an auto shift
+	 * @param delayNanos -- time from the press to the first repeat
+	 * @param repeatNanos -- time between two repeats, 0 to move to the wall
+	 */
+	public AutoShift(long delayNanos, long repeatNanos){
+		this.delayNanos = delayNanos;
+		this.repeatNanos = repeatNanos;
+	}
+	/**
+	 * A key went down
+	 * @param direction -- LEFT or RIGHT
+	 * @param time -- System.nanoTime of the press
+	 */
+	public void press(Input direction, long time){
+		boolean left = direction == Input.LEFT;
+		if(left ? leftHeld : rightHeld)
+			return;		//repeat of a held key
+
+		if(left)
+			leftHeld = true;
+		else
+			rightHeld = true;
+		long releasedAt = left ? leftReleased : rightReleased;
+		if(active == null && releasedAt != Long.MIN_VALUE && time - releasedAt < filterNanos)
+		{
+			this.active = direction;	//the release was an OS repeat, the repeats go on as planned
+			return;
+		}
+		this.active = direction;
+		this.pressTime = time;
+		this.nextMove = time + delayNanos;
+		this.tapPending = true;
+	}
+	/**
+	 * A key went up
+	 * @param direction -- LEFT or RIGHT
+	 * @param time -- System.nanoTime of the release
+	 */
+	public void release(Input direction, long time){
+		if(direction == Input.LEFT)
+		{
+			leftHeld = false;
+			leftReleased = time;
+		}
+		else
+		{
+			rightHeld = false;
+			rightReleased = time;
+		}
+		if(active != direction)
+			return;
+
+		this.tapPending = false;
+		this.active = leftHeld ? Input.LEFT : rightHeld ? Input.RIGHT : null;
+		if(active != null)
+			this.nextMove = time + delayNanos;	//the other key charges again
+	}
+	/**
+	 * Moves the piece for the press and every repeat that is due
+	 * @param engine -- engine to move the piece in
+	 * @param now -- System.nanoTime
+	 * @return -- moves sent
+	 */
+	public int update(GameEngine engine, long now){
+		this.tapped = false;
+		if(active == null)
+			return 0;
+		if(!engine.isRunning())		//paused or over, the press is used up and the repeats wait
+		{
+			this.tapPending = false;
+			if(repeatNanos > 0 && now - nextMove >= 0)
+				this.nextMove = now + repeatNanos;
+			return 0;
+		}
+
+		int moves = 0;
+		if(tapPending)
+		{
+			this.tapPending = false;
+			this.tapped = move(engine);
+			if(tapped)
+				moves++;
+		}
+		if(now - nextMove < 0)
+			return moves;
+
+		if(repeatNanos == 0)
+		{
+			while(move(engine))
+			{
+				moves++;
+			}
+			return moves;
+		}
+		for(int repeats = 0; now - nextMove >= 0 && repeats < engine.getBoard().getWidth(); repeats++)
+		{
+			if(move(engine))
+				moves++;
+			this.nextMove += repeatNanos;
+		}
+		if(now - nextMove >= 0)
+			this.nextMove = now + repeatNanos;	//held through a stall, no burst
+		return moves;
+	}
+	/**
+	 * Sends one move if the piece can go there, so a piece at the wall sends
+	 * nothing(and records nothing in a replay)
+	 * @param engine -- engine to move the piece in
+	 * @return -- if it moved
+	 */
+	private boolean move(GameEngine engine){
+		int col = engine.getColumn() + ((active == Input.LEFT) ? -1 : 1);
+		if(!engine.getBoard().canPieceInsert(engine.getPiece(), col, engine.getRow(), engine.getRotation()))
+			return false;
+		engine.input(active);
+		return true;
+	}
+	/**
+	 * Gets the time the next move is due
+	 * @param now -- System.nanoTime
+	 * @return -- System.nanoTime, Long.MAX_VALUE if no key is held or the piece
+	 * only has to be kept at the wall, which every tick does
+	 */
+	public long getNextMove(long now){
+		if(active == null || (repeatNanos == 0 && !tapPending && now - nextMove >= 0))
+			return Long.MAX_VALUE;
+		return tapPending ? pressTime : nextMove;
+	}
+	/**
+	 * Checks if the last update made the first move of a press
+	 * @return -- if it did
+	 */
+	public boolean wasTapped(){
+		return tapped;
+	}
+	/**
+	 * Gets the time of the press that is moving the piece
+	 * @return -- System.nanoTime
+	 */
+	public long getPressTime(){
+		return pressTime;
+	}
+}
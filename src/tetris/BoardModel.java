@@ -0,0 +1,773 @@
+/**
+ * Bitboard version of the game grid. Every row is a few longs(bit n of word w =
+ * column 64w + n) so collisions and full rows are checked with a few AND/OR
+ * operations per piece row, however wide the board is. The size is set per
+ * board, from the standard 10x20 up to a thousand columns and four thousand
+ * rows. The piece colors are kept apart in a compact byte plane, and a Zobrist
+ * hash of the filled tiles is kept up to date as tiles change. Column heights
+ * and the filled tiles per row and per column are kept up to date as well, so
+ * holes, drop distances and full rows never need a scan of the whole board,
+ * and a line scan only looks at the rows changed since the last one.
+ *
+ * The rows live in a ring a power of two long, row 0 is at a moving base and
+ * the slots past the last row are kept empty. A line clear moves whichever
+ * side of the cleared rows is shorter: the rows above come down as before, or
+ * the rows below go up and the base moves down under the rows above, which
+ * then stay where they are. Garbage pushed in at the bottom only moves the
+ * base and fills the new rows. The hash keys the tiles by their row, not by
+ * their slot, so boards with the same tiles hash the same however their rows
+ * got there. A clear or garbage XORs the tiles that changed row out at the old
+ * one and in at the new one, which is the only part of them that grows with
+ * the stack. Every row carries a stamp that changes whenever the row does, so a
+ * renderer can redraw just the rows that changed since it last looked.
+ */
+package tetris;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class BoardModel {
+
+	public static final int numOfColums = 10;		//size of the standard board
+	public static final int activeNumRows = 20;
+	public static final int passiveNumRows = 2;
+	public static final int totalNumRows = activeNumRows + passiveNumRows;
+
+	public static final int minColumns = 4, maxColumns = 1000;		//limits of TranspositionTable.packPlacement
+	public static final int minRows = 4, maxRows = 4000;
+
+	private static final Piece[] pieces = Piece.values();
+
+	private final int width, activeRows, height;	//height = active rows + passive rows
+	private final int words;			//longs per row
+	private final int slotMask;		//slots in the ring - 1
+
+	private long[] rows;		//occupancy, words per slot
+	private byte[] colors;	//piece ordinal + 1 per tile, 0 = empty
+	private int base;		//slot of row 0
+	private long hash;		//Zobrist hash of the filled tiles
+	private int[] heights;		//rows from the floor to the top tile of each column, 0 = empty
+	private int[] columnFill;	//filled tiles per column
+	private int[] rowFill;		//filled tiles per slot
+	private long[] rowStamps;	//value of changes when the slot was last touched
+	private long changes, shiftStamp;	//shiftStamp = changes when rows last moved
+	private int scanFrom, scanTo;	//rows changed since the last line scan, every full row is in there
+
+	/**
+	 * Creates a new empty board of the standard size
+	 */
+	public BoardModel(){
+		this(numOfColums, activeNumRows);
+	}
+	/**
+	 * Creates a new empty board, with the passive rows above the active ones
+	 * @param columns -- number of columns
+	 * @param active -- number of rows in play
+	 */
+	public BoardModel(int columns, int active){
+		if(columns < minColumns || columns > maxColumns || active < minRows || active + passiveNumRows > maxRows)
+			throw new IllegalArgumentException("board of " + columns + "x" + active);
+
+		this.width = columns;
+		this.activeRows = active;
+		this.height = active + passiveNumRows;
+		this.words = (columns + 63) >> 6;
+		int slots = Integer.highestOneBit(height) << 1;		//room for the rows and a few spare ones
+		this.slotMask = slots - 1;
+		this.rows = new long[slots * words];
+		this.colors = new byte[slots * columns];
+		this.heights = new int[columns];
+		this.columnFill = new int[columns];
+		this.rowFill = new int[slots];
+		this.rowStamps = new long[slots];
+		this.scanFrom = height;
+	}
+	/**
+	 * Gets the number of columns
+	 * @return -- columns
+	 */
+	public int getWidth(){
+		return width;
+	}
+	/**
+	 * Gets the number of rows in play
+	 * @return -- active rows
+	 */
+	public int getActiveRows(){
+		return activeRows;
+	}
+	/**
+	 * Gets the number of rows, the passive ones above the play area included
+	 * @return -- total rows
+	 */
+	public int getHeight(){
+		return height;
+	}
+	/**
+	 * Gets the number of longs per row
+	 * @return -- words
+	 */
+	public int getWords(){
+		return words;
+	}
+	/**
+	 * Gets the column a new piece starts in, the middle of the board
+	 * @param type -- specific piece
+	 * @return -- column
+	 */
+	public int getSpawnColumn(Piece type){
+		return (width >> 1) - (type.getDimension() >> 1);
+	}
+	/**
+	 * Gets the slot of the ring a row is in
+	 */
+	private int slot(int row){
+		return (base + row) & slotMask;
+	}
+	/**
+	 * Sets a tile at the desired intersection(col/row)
+	 * @param col -- column
+	 * @param row -- row
+	 * @param type -- tile value, null to empty it
+	 */
+	public void setTile(int col, int row, Piece type){
+		touch(row, row + 1);
+		boolean filled = isInhabited(col, row);
+		if(filled != (type != null))
+			hash ^= Zobrist.cell(col, row);
+
+		int slot = slot(row);
+		int at = slot * words + (col >> 6);
+		if(type == null)
+		{
+			rows[at] &= ~(1L << col);
+			colors[slot * width + col] = 0;
+			if(filled)
+			{
+				rowFill[slot]--;
+				columnFill[col]--;
+				if(heights[col] == height - row)	//the top tile went away
+					heights[col] = scanHeight(col, row + 1);
+			}
+		}
+		else
+		{
+			rows[at] |= 1L << col;
+			colors[slot * width + col] = (byte)(type.ordinal() + 1);
+			if(!filled)
+			{
+				rowFill[slot]++;
+				columnFill[col]++;
+				heights[col] = Math.max(heights[col], height - row);
+				changed(row, row + 1);
+			}
+		}
+	}
+	/**
+	 * Marks rows as changed
+	 * @param from -- first row
+	 * @param to -- row after the last one
+	 */
+	private void touch(int from, int to){
+		changes++;
+		for(int row = from; row < to; row++)
+		{
+			rowStamps[slot(row)] = changes;
+		}
+	}
+	/**
+	 * Marks every row as changed, for when rows moved
+	 */
+	private void touchAll(){
+		changes++;
+		shiftStamp = changes;
+	}
+	/**
+	 * Adds rows that got new tiles to the ones the next line scan looks at
+	 */
+	private void changed(int from, int to){
+		scanFrom = Math.min(scanFrom, from);
+		scanTo = Math.max(scanTo, to);
+	}
+	/**
+	 * Finds the height of a column from the first filled tile at or below a row
+	 */
+	private int scanHeight(int col, int from){
+		int word = col >> 6;
+		long bit = 1L << col;
+		for(int row = from; row < height; row++)
+		{
+			if((rows[slot(row) * words + word] & bit) != 0)
+				return height - row;
+		}
+		return 0;
+	}
+	/**
+	 * Gets a tile based on the col/row pair
+	 * @param col -- column
+	 * @param row -- row
+	 * @return -- the piece on the tile, null if empty
+	 */
+	public Piece getTile(int col, int row){
+		int color = colors[slot(row) * width + col];
+		return (color == 0) ? null : pieces[color - 1];
+	}
+	/**
+	 * Checks if a tile has already been accessed
+	 * @param col -- column
+	 * @param row -- row
+	 * @return -- if the tile is valid/invalid
+	 */
+	public boolean isInhabited(int col, int row){
+		return (rows[slot(row) * words + (col >> 6)] & (1L << col)) != 0;
+	}
+	/**
+	 * Gets the occupancy of 64 columns of a row
+	 * @param row -- row
+	 * @param word -- long of the row, from 0 to getWords
+	 * @return -- bitmask(bit n = column 64 * word + n)
+	 */
+	public long getRowWord(int row, int word){
+		return rows[slot(row) * words + word];
+	}
+	/**
+	 * Gets the height of a column
+	 * @param col -- column
+	 * @return -- rows from the floor to the top tile, 0 if the column is empty
+	 */
+	public int getColumnHeight(int col){
+		return heights[col];
+	}
+	/**
+	 * Gets the number of holes in a column
+	 * @param col -- column
+	 * @return -- empty tiles under the top tile of the column
+	 */
+	public int getColumnHoles(int col){
+		return heights[col] - columnFill[col];
+	}
+	/**
+	 * Gets the number of holes on the board
+	 * @return -- empty tiles under the column tops
+	 */
+	public int getHoles(){
+		int holes = 0;
+		for(int col = 0; col < width; col++)
+		{
+			holes += heights[col] - columnFill[col];
+		}
+		return holes;
+	}
+	/**
+	 * Gets the number of filled tiles in a row
+	 * @param row -- row
+	 * @return -- filled tiles
+	 */
+	public int getRowFill(int row){
+		return rowFill[slot(row)];
+	}
+	/**
+	 * Gets the stamp of a row, it changes every time the row does
+	 * @param row -- row
+	 * @return -- stamp
+	 */
+	public long getRowStamp(int row){
+		return Math.max(rowStamps[slot(row)], shiftStamp);
+	}
+	/**
+	 * Gets the number of changes made to the board so far
+	 * @return -- change count
+	 */
+	public long getChanges(){
+		return changes;
+	}
+	/**
+	 * Copies the tiles and row stamps out from row 0 down, for snapshots
+	 * @param rowsOut -- occupancy, words per row
+	 * @param colorsOut -- color plane
+	 * @param stampsOut -- row stamps
+	 */
+	void copyTo(long[] rowsOut, byte[] colorsOut, long[] stampsOut){
+		for(int row = 0; row < height; row++)
+		{
+			int slot = slot(row);
+			System.arraycopy(rows, slot * words, rowsOut, row * words, words);
+			System.arraycopy(colors, slot * width, colorsOut, row * width, width);
+			stampsOut[row] = Math.max(rowStamps[slot], shiftStamp);
+		}
+	}
+	/**
+	 * Writes the color of every tile from row 0 down(piece ordinal + 1, 0 = empty)
+	 * @param out -- buffer with room for width * height bytes
+	 */
+	public void putColors(ByteBuffer out){
+		for(int row = 0; row < height; row++)
+		{
+			out.put(colors, slot(row) * width, width);
+		}
+	}
+	/**
+	 * Writes the color of every tile of one row(piece ordinal + 1, 0 = empty)
+	 * @param row -- row
+	 * @param out -- buffer with room for width bytes
+	 */
+	public void putRow(int row, ByteBuffer out){
+		out.put(colors, slot(row) * width, width);
+	}
+	/**
+	 * Writes the tiles for a replay keyframe: the first row with a tile, the
+	 * bits of every row from there down in whole bytes, then the piece ordinal
+	 * of every filled tile from the top down
+	 * @param out -- output
+	 * @throws IOException -- if the output fails
+	 */
+	void write(DataOutput out) throws IOException {
+		int top = height;
+		for(int col = 0; col < width; col++)
+		{
+			top = Math.min(top, height - heights[col]);
+		}
+		out.writeShort(top);
+		int bytes = (width + 7) >> 3;
+		for(int row = top; row < height; row++)
+		{
+			for(int i = 0; i < bytes; i++)
+			{
+				out.writeByte((int)(rows[slot(row) * words + (i >> 3)] >>> ((i & 7) << 3)));
+			}
+		}
+		for(int row = top; row < height; row++)
+		{
+			int slot = slot(row);
+			for(int word = 0; word < words; word++)
+			{
+				for(long bits = rows[slot * words + word]; bits != 0; bits &= bits - 1)
+				{
+					out.writeByte(colors[slot * width + (word << 6) + Long.numberOfTrailingZeros(bits)] - 1);
+				}
+			}
+		}
+	}
+	/**
+	 * Replaces the tiles with the ones of a replay keyframe
+	 * @param in -- keyframe, positioned at the tiles
+	 */
+	void read(ByteBuffer in){
+		wipe();
+		int top = in.getShort();
+		int bytes = (width + 7) >> 3;
+		long[] bits = new long[(height - top) * words];
+		for(int row = 0; row < height - top; row++)
+		{
+			for(int i = 0; i < bytes; i++)
+			{
+				bits[row * words + (i >> 3)] |= (in.get() & 0xFFL) << ((i & 7) << 3);
+			}
+		}
+		for(int row = 0; row < height - top; row++)
+		{
+			for(int word = 0; word < words; word++)
+			{
+				for(long left = bits[row * words + word]; left != 0; left &= left - 1)
+				{
+					setTile((word << 6) + Long.numberOfTrailingZeros(left), top + row, pieces[in.get()]);
+				}
+			}
+		}
+	}
+	/**
+	 * Gets the Zobrist hash of the filled tiles, colors are left out
+	 * @return -- hash
+	 */
+	public long getHash(){
+		return hash;
+	}
+	/**
+	 * Gets the row of the highest tile
+	 * @return -- row, the height if the board is empty
+	 */
+	public int getTop(){
+		int top = height;
+		for(int col = 0; col < width; col++)
+		{
+			top = Math.min(top, height - heights[col]);
+		}
+		return top;
+	}
+	/**
+	 * Copies every tile of another board of the same size over this one
+	 * @param other -- board to copy
+	 */
+	public void copyFrom(BoardModel other){
+		System.arraycopy(other.rows, 0, rows, 0, rows.length);
+		System.arraycopy(other.colors, 0, colors, 0, colors.length);
+		System.arraycopy(other.heights, 0, heights, 0, heights.length);
+		System.arraycopy(other.columnFill, 0, columnFill, 0, columnFill.length);
+		System.arraycopy(other.rowFill, 0, rowFill, 0, rowFill.length);
+		this.base = other.base;
+		this.hash = other.hash;
+		this.scanFrom = other.scanFrom;
+		this.scanTo = other.scanTo;
+		touchAll();
+	}
+	/**
+	 * Wipes the board
+	 */
+	public void wipe(){
+		Arrays.fill(rows, 0L);
+		Arrays.fill(colors, (byte)0);
+		Arrays.fill(heights, 0);
+		Arrays.fill(columnFill, 0);
+		Arrays.fill(rowFill, 0);
+		this.base = 0;
+		this.hash = 0;
+		this.scanFrom = height;
+		this.scanTo = 0;
+		touchAll();
+	}
+	/**
+	 * Moves a column back inside of the walls after the piece turned
+	 * @param type -- specific piece
+	 * @param x -- column before the turn
+	 * @param rotation -- the new rotation
+	 * @return -- column after the turn
+	 */
+	public int clampColumn(Piece type, int x, int rotation){
+		int left = type.getSpaceLeft(rotation);		//spacing outside of the pieces
+		int right = type.getSpaceRight(rotation);
+
+		if(x < -left)
+			return x - (x - left);
+		else if(x + type.getDimension() - right >= width)
+			return x - ((x + type.getDimension() - right) - width + 1);
+		return x;
+	}
+	/**
+	 * Moves a row back inside of the floor and ceiling after the piece turned
+	 * @param type -- specific piece
+	 * @param y -- row before the turn
+	 * @param rotation -- the new rotation
+	 * @return -- row after the turn
+	 */
+	public int clampRow(Piece type, int y, int rotation){
+		int top = type.getSpaceTop(rotation);
+		int bottom = type.getSpaceBottom(rotation);
+
+		if(y < -top)
+			return y - (y - top);
+		else if(y + type.getDimension() - bottom >= height)
+			return y - ((y + type.getDimension() - bottom) - height + 1);
+		return y;
+	}
+	/**
+	 * Gets the part of a piece row mask that spills into the next word
+	 * @param mask -- piece row, moved to its leftmost tile
+	 * @param shift -- column of the leftmost tile inside of its word
+	 * @return -- bits for the next word, 0 if the piece stays in one
+	 */
+	private static long spill(long mask, int shift){
+		return (shift == 0) ? 0 : mask >>> (64 - shift);
+	}
+	/**
+	 * Using the provided coordinates, checks if a piece can be inserted
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param rotation -- The rotation of the piece.
+	 * @return valid/invalid position
+	 */
+	public boolean canPieceInsert(Piece type, int x, int y, int rotation){
+		int left = type.getSpaceLeft(rotation);
+		if(x < -left || x + type.getDimension() - type.getSpaceRight(rotation) >= width)	//valid column
+			return false;
+
+		if(y < -type.getSpaceTop(rotation) ||
+				y + type.getDimension() - type.getSpaceBottom(rotation) >= height)	//valid row
+			return false;
+
+		int col = x + left;		//leftmost tile of the piece
+		int shift = col & 63;
+		int last = type.getDimension() - type.getSpaceBottom(rotation);
+		for(int row = type.getSpaceTop(rotation); row <= last; row++)	//one or two ANDs per row for overlap
+		{
+			long mask = type.getRowMask(rotation, row) >>> left;
+			int at = slot(y + row) * words + (col >> 6);
+			if((rows[at] & (mask << shift)) != 0)
+				return false;
+			long high = spill(mask, shift);
+			if(high != 0 && (rows[at + 1] & high) != 0)
+				return false;
+		}
+		return true;
+	}
+	/**
+	 * Finds how many rows a piece can fall before it lands. When every column of
+	 * the piece is above the top tile of the board column under it, the answer
+	 * comes from the column heights alone. A piece that is already under an
+	 * overhang falls back to testing one row at a time.
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate, the piece has to fit there
+	 * @param rotation -- The rotation of the piece
+	 * @return -- rows the piece can fall, 0 if it is resting
+	 */
+	public int dropDistance(Piece type, int x, int y, int rotation){
+		int distance = height;
+
+		for(int col = 0; col < type.getDimension(); col++)
+		{
+			int bottom = type.getColumnBottom(rotation, col);
+			if(bottom < 0)
+				continue;
+
+			int free = height - heights[x + col] - (y + bottom) - 1;	//empty rows under the lowest tile
+			if(free < 0)
+			{
+				distance = -1;
+				break;
+			}
+			distance = Math.min(distance, free);
+		}
+		if(distance >= 0)
+			return distance;
+
+		for(distance = 0; canPieceInsert(type, x, y + distance + 1, rotation); distance++);	//under an overhang
+		return distance;
+	}
+	/**
+	 * Adds a piece to the board(will overwrite)
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param rotation -- The rotation of the piece
+	 */
+	public void addGamePiece(Piece type, int x, int y, int rotation){
+		byte color = (byte)(type.ordinal() + 1);
+		int left = type.getSpaceLeft(rotation);
+		int col = x + left;
+		int shift = col & 63;
+
+		int first = type.getSpaceTop(rotation);
+		int last = type.getDimension() - type.getSpaceBottom(rotation);
+		touch(y + first, y + last + 1);
+		changed(y + first, y + last + 1);
+		for(int row = first; row <= last; row++)
+		{
+			long mask = type.getRowMask(rotation, row) >>> left;
+			place(y + row, col >> 6, mask << shift, color);
+			long high = spill(mask, shift);
+			if(high != 0)
+				place(y + row, (col >> 6) + 1, high, color);
+		}
+	}
+	/**
+	 * Fills tiles of one word of a row and keeps the counts and the hash up to date
+	 */
+	private void place(int row, int word, long mask, byte color){
+		int slot = slot(row);
+		int at = slot * words + word;
+		long fresh = mask & ~rows[at];
+		hash ^= Zobrist.row(row, word, fresh);
+		rows[at] |= mask;
+		rowFill[slot] += Long.bitCount(fresh);
+		int offset = slot * width + (word << 6);
+		for(long bits = mask; bits != 0; bits &= bits - 1)
+		{
+			colors[offset + Long.numberOfTrailingZeros(bits)] = color;
+		}
+		for(long bits = fresh; bits != 0; bits &= bits - 1)
+		{
+			int col = (word << 6) + Long.numberOfTrailingZeros(bits);
+			columnFill[col]++;
+			heights[col] = Math.max(heights[col], height - row);
+		}
+	}
+	/**
+	 * Removes full lines from the board
+	 * @return -- number of lines removed
+	 */
+	public int lineScan(){
+		return lineScan(null);
+	}
+	/**
+	 * Removes full lines from the board. Only the rows that got tiles since
+	 * the last scan can be full. All of them go in one pass, every row that
+	 * stays is moved once. When fewer rows are under the full ones than above,
+	 * those are moved up and the base of the ring moves down instead, so the
+	 * rows above do not move at all.
+	 * @param out -- filled with the removed rows, null if only the count is needed
+	 * @return -- number of lines removed
+	 */
+	public int lineScan(ClearedRows out){
+		if(out != null)
+			out.clear();
+		int count = 0, first = -1, last = -1;
+		for(int row = scanFrom; row < scanTo; row++)
+		{
+			if(rowFill[slot(row)] == width)
+			{
+				if(out != null)
+					out.add(row);
+				if(count++ == 0)
+					first = row;
+				last = row;
+			}
+		}
+		this.scanFrom = height;
+		this.scanTo = 0;
+		if(count == 0)
+			return 0;
+
+		int top = getTop();		//the rows above it are empty
+		touchAll();
+		int shift = 0;
+		for(int row = last; row >= top; row--)	//the full rows go out of the hash, the rows above them move down
+		{
+			int slot = slot(row);
+			if(rowFill[slot] == width)
+			{
+				shift++;
+				hash ^= rowKey(slot, row);
+			}
+			else if(shift > 0)
+				hash ^= rowKey(slot, row) ^ rowKey(slot, row + shift);
+		}
+		if(height - first < last + 1 - top && height + count <= slotMask + 1)	//the new top rows have to come from the spare slots
+			raiseBelow(first, count);
+		else
+			lowerAbove(top, last, count);
+
+		for(int col = 0; col < width; col++)
+		{
+			columnFill[col] -= count;
+			heights[col] = (heights[col] == height - first) ? scanHeight(col, first + count) : heights[col] - count;
+		}
+		return count;
+	}
+	/**
+	 * Moves the rows above the full ones down over them, bottom up so nothing
+	 * is overwritten before it moved, the full rows are all between first and last
+	 */
+	private void lowerAbove(int top, int last, int count){
+		int shift = 0;
+		for(int row = last; row >= top; row--)
+		{
+			int slot = slot(row);
+			if(rowFill[slot] == width)
+				shift++;
+			else
+				moveSlot(slot, slot(row + shift));
+		}
+		for(int row = top; row < top + count; row++)	//the rows that came in at the top
+		{
+			clearSlot(slot(row));
+		}
+	}
+	/**
+	 * Moves the rows under the first full one up over the full ones, top down,
+	 * then moves the base up by the number of full rows. The rows above the
+	 * first full one end up as many rows lower without being touched, and the
+	 * empty spare slots above them become the new top rows.
+	 */
+	private void raiseBelow(int first, int count){
+		int passed = 0;		//full rows at or above the row
+		for(int row = first; row < height; row++)
+		{
+			int slot = slot(row);
+			if(rowFill[slot] == width)
+				passed++;
+			else
+				moveSlot(slot, slot(row - passed));
+		}
+		for(int row = height - count; row < height; row++)	//left over at the bottom, spare from now on
+		{
+			clearSlot(slot(row));
+		}
+		this.base = (base - count) & slotMask;
+	}
+	/**
+	 * Gets the XOR of the keys of the tiles of a slot if they were on a row
+	 */
+	private long rowKey(int slot, int row){
+		long key = 0;
+		for(int word = 0; word < words; word++)
+		{
+			long bits = rows[slot * words + word];
+			if(bits != 0)
+				key ^= Zobrist.row(row, word, bits);
+		}
+		return key;
+	}
+	/**
+	 * Copies the tiles of one slot over another
+	 */
+	private void moveSlot(int from, int to){
+		System.arraycopy(rows, from * words, rows, to * words, words);
+		System.arraycopy(colors, from * width, colors, to * width, width);
+		rowFill[to] = rowFill[from];
+	}
+	/**
+	 * Empties a slot
+	 */
+	private void clearSlot(int slot){
+		Arrays.fill(rows, slot * words, (slot + 1) * words, 0L);
+		Arrays.fill(colors, slot * width, (slot + 1) * width, (byte)0);
+		rowFill[slot] = 0;
+	}
+	/**
+	 * Pushes rows of garbage in at the bottom, every tile filled except for a
+	 * hole. The rest of the board goes up by that many rows, which only moves
+	 * the base of the ring, nothing is copied.
+	 * @param lines -- number of rows to push in, from 1 to the rows in play
+	 * @param hole -- the empty column of the new rows
+	 * @param type -- piece the garbage tiles are colored as
+	 * @return -- false if there are tiles in the top rows that would be pushed
+	 * out, the board is left as it was then
+	 */
+	public boolean addGarbage(int lines, int hole, Piece type){
+		if(lines < 1 || lines > activeRows || hole < 0 || hole >= width)
+			throw new IllegalArgumentException(lines + " lines of garbage with the hole at " + hole);
+		int top = getTop();
+		if(top < lines)
+			return false;
+
+		touchAll();
+		for(int row = top; row < height; row++)	//every row with tiles goes up
+		{
+			int slot = slot(row);
+			hash ^= rowKey(slot, row) ^ rowKey(slot, row - lines);
+		}
+		this.base = (base + lines) & slotMask;
+		byte color = (byte)(type.ordinal() + 1);
+		for(int row = height - lines; row < height; row++)	//the slots the top rows were in, they are empty
+		{
+			int slot = slot(row);
+			for(int word = 0; word < words; word++)
+			{
+				long full = (word == words - 1 && (width & 63) != 0) ? (1L << width) - 1 : -1L;
+				rows[slot * words + word] = full;
+			}
+			rows[slot * words + (hole >> 6)] &= ~(1L << hole);
+			Arrays.fill(colors, slot * width, (slot + 1) * width, color);
+			colors[slot * width + hole] = 0;
+			rowFill[slot] = width - 1;
+			hash ^= rowKey(slot, row);
+		}
+
+		for(int col = 0; col < width; col++)
+		{
+			if(col != hole)
+			{
+				columnFill[col] += lines;
+				heights[col] += lines;
+			}
+			else if(heights[col] != 0)
+				heights[col] += lines;
+		}
+		this.scanFrom = Math.max(0, scanFrom - lines);	//the rows waiting for a scan went up too
+		this.scanTo = Math.max(0, scanTo - lines);
+		return true;
+	}
+}
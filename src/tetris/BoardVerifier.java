@@ -0,0 +1,340 @@
+/**
+ * Checks the bitboard against a plain grid of pieces without a window. Random
+ * pieces are dropped, tiles set and emptied, lines cleared, garbage pushed in,
+ * boards copied and written out and read back, on both the bitboard and a
+ * Piece[row][column] grid that does it the obvious way. After every step
+ * every tile, the column heights, the row fills, the holes and the Zobrist
+ * hash of the bitboard have to match the grid, the cleared rows have to be
+ * the ones the grid lost, and every row that changed has to have a new stamp.
+ * Boards around the 64 column words and tall ones are checked, so the rows go
+ * round the ring many times and both sides of a clear get moved.
+ */
+package tetris;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+public class BoardVerifier {
+
+	private static final Piece[] pieces = Piece.values();
+	private static final int[][] sizes = {		//columns and rows in play, around the 64 column words
+			{4, 4}, {4, 20}, {4, 60}, {10, 4}, {10, 20}, {10, 60}, {63, 20}, {64, 20}, {65, 20}, {65, 60},
+			{127, 20}, {130, 20}, {130, 60}, {256, 20}, {10, 1000}};	//the last one fills many slots
+
+	private int width, height;
+	private BoardModel board, spare;
+	private Piece[][] tiles;		//the grid, [row][column]
+	private Piece[][] seen;			//the grid at the last check
+	private long[] stamps;			//the row stamps at the last check
+	private ClearedRows cleared = new ClearedRows();
+	private SplittableRandom random;
+	private long lines, garbage;
+
+	/**
+	 * Creates an empty bitboard and grid
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 * @param seed -- seed of the steps
+	 */
+	public BoardVerifier(int columns, int rows, long seed){
+		this.board = new BoardModel(columns, rows);
+		this.spare = new BoardModel(columns, rows);
+		this.width = columns;
+		this.height = board.getHeight();
+		this.tiles = new Piece[height][width];
+		this.seen = new Piece[height][width];
+		this.stamps = new long[height];
+		this.random = new SplittableRandom(seed);
+	}
+	/**
+	 * Runs random steps and checks the bitboard after each
+	 * @param steps -- steps to run
+	 * @return -- null if everything matched, else what did not
+	 */
+	public String run(int steps){
+		for(int step = 0; step < steps; step++)
+		{
+			int op = random.nextInt(12);
+			String mismatch;
+			if(op < 5)
+				mismatch = drop();
+			else if(op < 8)
+				mismatch = paint(op == 7);
+			else if(op == 8)
+				mismatch = clear();
+			else if(op == 9)
+				mismatch = copy();
+			else if(op == 10)
+				mismatch = pushGarbage();
+			else
+				mismatch = writeAndRead();
+			if(mismatch == null)
+				mismatch = check();
+			if(mismatch != null)
+				return width + "x" + (height - BoardModel.passiveNumRows) + " step " + step + ": " + mismatch;
+		}
+		return null;
+	}
+	/**
+	 * Checks if a piece fits on the grid
+	 */
+	private boolean fits(Piece type, int x, int y, int rotation){
+		for(int i = 0; i < type.getCellCount(rotation); i++)
+		{
+			int col = x + type.getCellX(rotation, i), row = y + type.getCellY(rotation, i);
+			if(col < 0 || col >= width || row < 0 || row >= height || tiles[row][col] != null)
+				return false;
+		}
+		return true;
+	}
+	/**
+	 * Tries a piece somewhere around the board and drops it if it fits
+	 */
+	private String drop(){
+		Piece type = pieces[random.nextInt(pieces.length)];
+		int rotation = random.nextInt(4);
+		int x = random.nextInt(width + 6) - 3, y = random.nextInt(height + 6) - 3;
+		boolean fits = fits(type, x, y, rotation);
+		if(board.canPieceInsert(type, x, y, rotation) != fits)
+			return "canPieceInsert " + type + " at " + x + "," + y;
+		if(!fits)
+			return null;
+
+		int distance = 0;
+		while(fits(type, x, y + distance + 1, rotation))
+		{
+			distance++;
+		}
+		if(board.dropDistance(type, x, y, rotation) != distance)
+			return "dropDistance " + type + " at " + x + "," + y;
+		board.addGamePiece(type, x, y + distance, rotation);
+		for(int i = 0; i < type.getCellCount(rotation); i++)
+		{
+			tiles[y + distance + type.getCellY(rotation, i)][x + type.getCellX(rotation, i)] = type;
+		}
+		return null;
+	}
+	/**
+	 * Sets or empties a tile near the floor, sometimes fills most of its row to get full lines
+	 */
+	private String paint(boolean empty){
+		int row = height - 1 - random.nextInt(Math.min(height, 6)), col = random.nextInt(width);
+		Piece type = (empty && random.nextInt(4) == 0) ? null : pieces[random.nextInt(pieces.length)];
+		board.setTile(col, row, type);
+		tiles[row][col] = type;
+		if(type != null && random.nextInt(3) == 0)
+		{
+			for(int other = 0; other < width; other++)
+			{
+				if(tiles[row][other] == null && random.nextInt(8) != 0)
+				{
+					board.setTile(other, row, type);
+					tiles[row][other] = type;
+				}
+			}
+		}
+		return null;
+	}
+	/**
+	 * Clears the full lines, on the grid top down, each one moving every row above it
+	 */
+	private String clear(){
+		int count = board.lineScan(cleared);
+		int gone = 0;
+		for(int row = 0; row < height; row++)
+		{
+			boolean full = true;
+			for(int col = 0; col < width; col++)
+			{
+				full &= tiles[row][col] != null;
+			}
+			if(!full)
+				continue;
+			if(gone >= cleared.size() || cleared.getRow(gone) != row)
+				return "cleared row " + row + " not reported";
+			gone++;
+			for(int above = row; above > 0; above--)
+			{
+				tiles[above] = tiles[above - 1];
+			}
+			tiles[0] = new Piece[width];
+		}
+		lines += gone;
+		if(count != gone || cleared.size() != gone)
+			return "lineScan cleared " + count + " lines, the grid " + gone;
+		return null;
+	}
+	/**
+	 * Copies the board over the spare one and goes on with the copy
+	 */
+	private String copy(){
+		spare.copyFrom(board);
+		swap();
+		return null;
+	}
+	/**
+	 * Pushes garbage in at the bottom, the board has to refuse it when tiles would be pushed out
+	 */
+	private String pushGarbage(){
+		int count = 1 + random.nextInt(Math.min(4, height - BoardModel.passiveNumRows));
+		int hole = random.nextInt(width);
+		Piece type = pieces[random.nextInt(pieces.length)];
+		boolean room = true;
+		for(int row = 0; row < count; row++)
+		{
+			for(int col = 0; col < width; col++)
+			{
+				room &= tiles[row][col] == null;
+			}
+		}
+		if(board.addGarbage(count, hole, type) != room)
+			return "addGarbage " + (room ? "refused" : "took") + " " + count + " rows";
+		if(!room)
+			return null;
+
+		for(int row = 0; row < height - count; row++)
+		{
+			tiles[row] = tiles[row + count];
+		}
+		for(int row = height - count; row < height; row++)
+		{
+			tiles[row] = new Piece[width];
+			for(int col = 0; col < width; col++)
+			{
+				if(col != hole)
+					tiles[row][col] = type;
+			}
+		}
+		garbage += count;
+		return null;
+	}
+	/**
+	 * Writes the board as a keyframe, reads it into the spare board and goes on
+	 * with that one, and checks the tiles copied out for snapshots
+	 */
+	private String writeAndRead(){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try
+		{
+			board.write(new DataOutputStream(bytes));
+		}
+		catch(IOException e)
+		{
+			return "write " + e;
+		}
+		spare.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+		int words = board.getWords();
+		long[] rows = new long[height * words];
+		byte[] colors = new byte[height * width];
+		board.copyTo(rows, colors, new long[height]);
+		for(int row = 0; row < height; row++)
+		{
+			for(int col = 0; col < width; col++)
+			{
+				Piece type = tiles[row][col];
+				if(((rows[row * words + (col >> 6)] >>> col & 1) != 0) != (type != null))
+					return "copyTo tile " + col + "," + row;
+				if(colors[row * width + col] != ((type == null) ? 0 : type.ordinal() + 1))
+					return "copyTo color " + col + "," + row;
+			}
+		}
+		swap();
+		return null;
+	}
+	/**
+	 * Goes on with the spare board, the stamps start over with it
+	 */
+	private void swap(){
+		BoardModel other = board;
+		this.board = spare;
+		this.spare = other;
+		for(int row = 0; row < height; row++)
+		{
+			seen[row] = null;	//every row counts as changed
+		}
+	}
+	/**
+	 * Compares the bitboard with the grid
+	 */
+	private String check(){
+		long hash = 0;
+		int holes = 0;
+		for(int col = 0; col < width; col++)
+		{
+			int top = 0, filled = 0;
+			for(int row = 0; row < height; row++)
+			{
+				if(tiles[row][col] == null)
+					continue;
+				if(top == 0)
+					top = height - row;
+				filled++;
+			}
+			if(board.getColumnHeight(col) != top)
+				return "height of column " + col;
+			holes += top - filled;
+		}
+		for(int row = 0; row < height; row++)
+		{
+			int filled = 0;
+			boolean changed = seen[row] == null;
+			for(int col = 0; col < width; col++)
+			{
+				Piece type = tiles[row][col];
+				if(board.getTile(col, row) != type || board.isInhabited(col, row) != (type != null))
+					return "tile " + col + "," + row;
+				if(type != null)
+				{
+					filled++;
+					hash ^= Zobrist.cell(col, row);
+				}
+				if(!changed && seen[row][col] != type)
+					changed = true;
+			}
+			if(board.getRowFill(row) != filled)
+				return "fill of row " + row;
+			long stamp = board.getRowStamp(row);
+			if(changed && seen[row] != null && stamp == stamps[row])
+				return "row " + row + " changed with the same stamp";
+			stamps[row] = stamp;
+			seen[row] = tiles[row].clone();
+		}
+		if(board.getHoles() != holes)
+			return "holes";
+		if(board.getHash() != hash)
+			return "hash";
+		return null;
+	}
+	/**
+	 * Runs the checks on every board size
+	 * args: steps per board(default 4000), seed(default 1)
+	 */
+	public static void main(String[] args){
+		int steps = (args.length > 0) ? Integer.parseInt(args[0]) : 4000;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 1L;
+		int failed = 0;
+		long lines = 0, garbage = 0;
+		long start = System.nanoTime();
+
+		for(int i = 0; i < sizes.length; i++)
+		{
+			BoardVerifier verifier = new BoardVerifier(sizes[i][0], sizes[i][1], seed + i);
+			String mismatch = verifier.run(steps);
+			if(mismatch != null)
+			{
+				System.out.println(mismatch);
+				failed++;
+			}
+			lines += verifier.lines;
+			garbage += verifier.garbage;
+		}
+		System.out.printf("%d of %d boards match, %d steps each, %d lines cleared, %d garbage rows in %.2f s%n",
+				sizes.length - failed, sizes.length, steps, lines, garbage, (System.nanoTime() - start) / 1e9);
+		if(failed != 0)
+			System.exit(1);
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Direct buffers of one size handed out and taken back by one thread. A game
+ * server session only holds a buffer while a message of it waits to be
+ * written, which is rarely more than a tick, so a shard of ten thousand
+ * sessions gets by with a handful of buffers instead of one each. Buffers
+ * given back go on a stack and are handed out again first, while they are
+ * still in the cache.
+ */
+package tetris;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class BufferPool {
+
+	private int bufferBytes;
+	private ByteBuffer[] free = new ByteBuffer[16];
+	private int count;		//buffers on the stack
+	private volatile long allocated;		//read by the report thread
+
+	/**
+	 * Creates an empty pool
+	 * @param bufferBytes -- capacity of every buffer
+	 */
+	public BufferPool(int bufferBytes){
+		this.bufferBytes = bufferBytes;
+	}
+	/**
+	 * Takes a buffer, a new one if none is free
+	 * @return -- cleared buffer
+	 */
+	public ByteBuffer acquire(){
+		if(count == 0)
+		{
+			allocated++;
+			return ByteBuffer.allocateDirect(bufferBytes);
+		}
+		ByteBuffer buffer = free[--count];
+		free[count] = null;
+		buffer.clear();
+		return buffer;
+	}
+	/**
+	 * Gives a buffer back, it must not be used after that
+	 * @param buffer -- buffer taken from this pool
+	 */
+	public void release(ByteBuffer buffer){
+		if(count == free.length)
+			this.free = Arrays.copyOf(free, count * 2);
+		free[count++] = buffer;
+	}
+	/**
+	 * Gets the capacity of the buffers
+	 * @return -- bytes
+	 */
+	public int getBufferBytes(){
+		return bufferBytes;
+	}
+	/**
+	 * Gets the number of buffers the pool made
+	 * @return -- buffers
+	 */
+	public long getAllocated(){
+		return allocated;
+	}
+	/**
+	 * Gets the number of buffers waiting in the pool
+	 * @return -- buffers
+	 */
+	public int getFree(){
+		return count;
+	}
+}
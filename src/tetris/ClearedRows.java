@@ -0,0 +1,59 @@
+/**
+ * Reusable list of the rows a line scan removed, filled by BoardModel.lineScan.
+ * The rows are the ones the lines were on before the clear, from the top down,
+ * so scoring, animations and replays can tell which lines went away.
+ */
+package tetris;
+
+import java.util.Arrays;
+
+public class ClearedRows {
+
+	private int[] rows = new int[4];
+	private int size;
+
+	/**
+	 * Empties the list
+	 */
+	public void clear(){
+		this.size = 0;
+	}
+	/**
+	 * Adds a row
+	 * @param row -- row before the clear
+	 */
+	void add(int row){
+		if(size == rows.length)
+			this.rows = Arrays.copyOf(rows, size * 2);
+		rows[size++] = row;
+	}
+	/**
+	 * Gets the number of rows removed
+	 * @return -- lines
+	 */
+	public int size(){
+		return size;
+	}
+	/**
+	 * Gets a removed row
+	 * @param index -- from 0 for the top one
+	 * @return -- row before the clear
+	 */
+	public int getRow(int index){
+		return rows[index];
+	}
+	/**
+	 * Gets the number of removed rows below a row, which is how far the tiles
+	 * of a row that stayed moved down
+	 * @param row -- row before the clear
+	 * @return -- rows removed under it
+	 */
+	public int getShift(int row){
+		int below = 0;
+		for(int i = size - 1; i >= 0 && rows[i] > row; i--)
+		{
+			below++;
+		}
+		return below;
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Source of time for the game timers. The wall clock follows System.nanoTime,
+ * a virtual clock only moves when it is told to, so a game can run faster than
+ * real time and play out the same way every time.
+ */
+package tetris;
+
+public interface Clock {
+
+	/**
+	 * Clock that follows System.nanoTime
+	 */
+	public static final Clock wall = System::nanoTime;
+
+	/**
+	 * Gets the current time
+	 * @return -- nanoseconds from an arbitrary start
+	 */
+	public long nanoTime();
+}
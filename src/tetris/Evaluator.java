@@ -0,0 +1,93 @@
+/**
+ * Scores a board for the autoplayer. Uses the classic features: aggregate height,
+ * holes, bumpiness, completed lines and row/column transitions. Heights and holes
+ * come from the counts the board keeps, the transitions are taken straight from
+ * the row bitmasks in one pass over the rows under the highest column.
+ */
+package tetris;
+
+public class Evaluator {
+
+	private double lineWeight = 0.76;
+	private double heightWeight = -0.51;
+	private double holeWeight = -0.36;
+	private double bumpWeight = -0.18;
+	private double rowTransitionWeight = -0.12;
+	private double columnTransitionWeight = -0.25;
+
+	/**
+	 * Creates an evaluator with the default weights
+	 */
+	public Evaluator(){
+	}
+	/**
+	 * Creates an evaluator with custom weights
+	 * @param lines -- weight of the completed lines
+	 * @param height -- weight of the summed column heights
+	 * @param holes -- weight of the empty tiles under a column top
+	 * @param bumpiness -- weight of the height steps between columns
+	 * @param rowTransitions -- weight of filled/empty changes along the rows
+	 * @param columnTransitions -- weight of filled/empty changes down the columns
+	 */
+	public Evaluator(double lines, double height, double holes, double bumpiness, double rowTransitions, double columnTransitions){
+		this.lineWeight = lines;
+		this.heightWeight = height;
+		this.holeWeight = holes;
+		this.bumpWeight = bumpiness;
+		this.rowTransitionWeight = rowTransitions;
+		this.columnTransitionWeight = columnTransitions;
+	}
+	/**
+	 * Gets the weight of one completed line, the score grows linearly with the lines
+	 * @return -- line weight
+	 */
+	public double getLineWeight(){
+		return lineWeight;
+	}
+	/**
+	 * Scores a board, higher is better
+	 * @param board -- board after the piece locked and the lines were removed
+	 * @param lines -- number of lines the piece completed
+	 * @return -- score
+	 */
+	public double evaluate(BoardModel board, int lines){
+		int width = board.getWidth(), height = board.getHeight(), words = board.getWords();
+		long lastWord = -1L >>> (-width & 63);		//columns of the last long of a row
+
+		int aggregate = 0, bumpiness = 0, highest = 0;
+		for(int col = 0; col < width; col++)
+		{
+			int columnHeight = board.getColumnHeight(col);
+			aggregate += columnHeight;
+			highest = Math.max(highest, columnHeight);
+			if(col > 0)
+				bumpiness += Math.abs(columnHeight - board.getColumnHeight(col - 1));
+		}
+		int holes = board.getHoles();
+
+		int rowTransitions = 0, columnTransitions = 0;
+		for(int row = height - highest; row < height; row++)	//the rows above are empty
+		{
+			long carry = 1;		//the left wall counts as filled
+			for(int word = 0; word < words; word++)
+			{
+				long valid = (word == words - 1) ? lastWord : -1L;
+				long bits = board.getRowWord(row, word);
+				long above = (row > height - highest) ? board.getRowWord(row - 1, word) : 0;
+				rowTransitions += Long.bitCount((bits ^ ((bits << 1) | carry)) & valid);
+				columnTransitions += Long.bitCount(bits ^ above);
+				carry = bits >>> 63;
+			}
+			if(!board.isInhabited(width - 1, row))
+				rowTransitions++;		//the right wall counts as filled
+		}
+		for(int word = 0; word < words; word++)
+		{
+			long valid = (word == words - 1) ? lastWord : -1L;
+			columnTransitions += Long.bitCount(~board.getRowWord(height - 1, word) & valid);	//the floor counts as filled
+		}
+
+		return lineWeight * lines + heightWeight * aggregate + holeWeight * holes + bumpWeight * bumpiness
+				+ rowTransitionWeight * rowTransitions + columnTransitionWeight * columnTransitions;
+	}
+}
@@ -0,0 +1,288 @@
+/**
+ * game grid and actions involved with the playable game board. The grid and
+ * the locked tiles are kept in two cached layers, the locked tiles are only
+ * redrawn for the rows that changed, so a frame is a few blits.
+ */
+package tetris;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import javax.swing.JPanel;
+
+public class GameBoard extends JPanel {
+
+	private static final long serialVersionUID = 1L;
+	private GameEngine tetris;
+	private TileSprites sprites = new TileSprites(tileSize, indent, gridColor);
+	private BufferedImage background;	//black with the grid lines
+	private BufferedImage stack;		//background with the locked tiles
+	private long[] drawnStamps;		//row stamps the stack layer shows
+	private LatencyProbe probe;
+	private GameMetrics metrics;
+	private volatile int fallOffset;	//pixels the piece is drawn above its row
+	
+	public static final int minColorShade = 35;  //light tile shade
+	public static final int maxColorShade = 255 - minColorShade;  //dark tile shade
+		
+	private static final int border = 5;
+	public static final int tileSize = 24;
+	public static final int indent = 4;
+	private static final Color gridColor = Color.DARK_GRAY;
+	
+	private static final int passiveNumRows = BoardModel.passiveNumRows;
+	private final int numOfColums, activeNumRows, totalNumRows;		//size of the board of the engine
+	private final int horizontalAxis, verticalAxis;
+	
+	public static final int boardWidth = getPanelWidth(BoardModel.numOfColums);		//panel of the standard board
+	public static final int boardHeight = getPanelHeight(BoardModel.activeNumRows);
+	
+	private static final Font titleFont = new Font("Fixedsys", Font.BOLD, 36);
+	private static final Font regularFont = new Font("Fixedsys", Font.BOLD, 12);
+	
+	/**
+	 * Creates a new game board
+	 * @param tetris -- game engine to draw
+	 */
+	public GameBoard(GameEngine tetris){
+		this.tetris = tetris;
+		BoardModel board = tetris.getBoard();
+		this.numOfColums = board.getWidth();
+		this.activeNumRows = board.getActiveRows();
+		this.totalNumRows = board.getHeight();
+		this.horizontalAxis = numOfColums * tileSize / 2;
+		this.verticalAxis = activeNumRows * tileSize / 2;
+		this.drawnStamps = new long[totalNumRows];
+		
+		setBackground(Color.BLACK);
+		setPreferredSize(new Dimension(getPanelWidth(numOfColums), getPanelHeight(activeNumRows)));	
+	}
+	/**
+	 * Gets the width of the panel of a board
+	 * @param columns -- board columns
+	 * @return -- pixels
+	 */
+	public static int getPanelWidth(int columns){
+		return columns * tileSize + border * 2;
+	}
+	/**
+	 * Gets the height of the panel of a board
+	 * @param rows -- board rows in play
+	 * @return -- pixels
+	 */
+	public static int getPanelHeight(int rows){
+		return rows * tileSize + border * 2;
+	}
+	/**
+	 * Sets the histograms the paint times go into
+	 * @param metrics -- histograms, null to time nothing
+	 */
+	public void setMetrics(GameMetrics metrics){
+		this.metrics = metrics;
+	}
+	/**
+	 * Sets the probe that is told about every painted frame
+	 * @param probe -- probe, null for none
+	 */
+	public void setProbe(LatencyProbe probe){
+		this.probe = probe;
+	}
+	/**
+	 * Draws the falling piece higher than its row, for frames in between two
+	 * logic ticks while it falls
+	 * @param pixels -- pixels above its row, 0 to draw it where it is
+	 */
+	public void setFallOffset(int pixels){
+		this.fallOffset = pixels;
+	}
+	/**
+	 * Wipes the game board
+	 */
+	public void wipe(){
+		tetris.getBoard().wipe();
+	}
+	/**
+	 * Removes lines from the board
+	 * @return -- number of lines removed
+	 */
+	public int lineScan(){
+		return tetris.getBoard().lineScan();
+	}
+	/**
+	 * Using the provided coordinates, checks if a piece can be inserted
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param rotation -- The rotation of the piece.
+	 * @return valid/invalid position
+	 */
+	public boolean canPieceInsert(Piece type, int x, int y, int rotation){
+		return tetris.getBoard().canPieceInsert(type, x, y, rotation);
+	}
+	/**
+	 * Adds a piece to the game board(will overwrite)
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param rotation -- The rotation of the piece
+	 */
+	public void addGamePiece(Piece type, int x, int y, int rotation){
+		tetris.getBoard().addGamePiece(type, x, y, rotation);
+	}
+	@Override
+	public void paintComponent(Graphics g){
+		long start = System.nanoTime();
+		GameSnapshot state = tetris.getSnapshot();	//one consistent state for the whole frame
+		super.paintComponent(g);
+		g.translate(border, border);
+		
+		if(state.isPaused())	//different game states
+		{
+			g.setFont(titleFont);
+			g.setColor(Color.LIGHT_GRAY);
+			String display = "PAUSED";
+			g.drawString(display, horizontalAxis - g.getFontMetrics().stringWidth(display) / 2, verticalAxis);
+		}
+		else if(state.isNewGame() || state.hasGameEnded()) //similar states
+		{
+			g.setFont(titleFont);
+			g.setColor(Color.LIGHT_GRAY);
+			String display = state.isNewGame() ? "TETRIS" : "GAME OVER";
+			
+			g.drawString(display, horizontalAxis - g.getFontMetrics().stringWidth(display) / 2, 150);
+			g.setFont(regularFont);
+			
+			display = "Press Enter to Play" + (state.isNewGame() ? "" : " Again");
+			g.drawString(display, horizontalAxis - g.getFontMetrics().stringWidth(display) / 2, 300);
+		}
+		else
+		{
+			updateLayers(state, g);
+			g.drawImage(stack, 0, 0, null);
+			
+			Piece type = state.getPiece();	//make the piece
+			int columnPiece = state.getColumn();
+			int rowPiece = state.getPieceRow();
+			int rotation = state.getRotation();
+			int offset = fallOffset;
+			Shape clip = null;
+			if(offset != 0)		//keep the sliding piece off of the border
+			{
+				clip = g.getClip();
+				g.clipRect(0, 0, numOfColums * tileSize, activeNumRows * tileSize);
+			}
+
+			for(int cell = 0; cell < type.getCellCount(rotation); cell++)
+			{
+				int col = type.getCellX(rotation, cell);
+				int y = (rowPiece + type.getCellY(rotation, cell) - passiveNumRows) * tileSize - offset;
+				if(y > -tileSize)
+					drawTile(type, (columnPiece + col) * tileSize, y, g);
+			}
+			if(clip != null)
+				g.setClip(clip);
+			
+			int lowest = state.getGhostRow();
+			for(int cell = 0; cell < type.getCellCount(rotation); cell++)
+			{
+				int col = type.getCellX(rotation, cell);
+				int row = type.getCellY(rotation, cell);
+				if(lowest + row >= 2)
+					sprites.drawGhost(type, (columnPiece + col) * tileSize, (lowest + row - passiveNumRows) * tileSize, g);
+			}
+		}
+
+		g.setColor(Color.WHITE);
+		g.drawRect(0, 0, tileSize * numOfColums, tileSize * activeNumRows);
+
+		if(probe != null)
+			probe.presented(state.getVersion(), start);
+		if(metrics != null)
+			metrics.paintBoard.since(start);
+	}
+	/**
+	 * Brings the cached layers up to date. Both are made again if the screen
+	 * changed, otherwise only the rows with a new stamp are redrawn.
+	 * @param state -- state being drawn
+	 * @param g -- graphics object of the panel
+	 */
+	private void updateLayers(GameSnapshot state, Graphics g){
+		GraphicsConfiguration config = ((Graphics2D)g).getDeviceConfiguration();
+		int width = numOfColums * tileSize;
+		int height = activeNumRows * tileSize;
+
+		if(sprites.validate(config) || stack == null)
+		{
+			this.background = createLayer(config, width, height);
+			this.stack = createLayer(config, width, height);
+			Arrays.fill(drawnStamps, -1);
+
+			Graphics bg = background.getGraphics();
+			bg.setColor(Color.BLACK);
+			bg.fillRect(0, 0, width, height);
+			bg.setColor(gridColor);
+			for(int i = 0; i < numOfColums; i++)
+			{
+				bg.drawLine(i * tileSize, 0, i * tileSize, height);
+			}
+			for(int j = 0; j < activeNumRows; j++)
+			{
+				bg.drawLine(0, j * tileSize, width, j * tileSize);
+			}
+			bg.dispose();
+		}
+
+		Graphics sg = null;
+		for(int row = passiveNumRows; row < totalNumRows; row++)
+		{
+			long stamp = state.getRowStamp(row);
+			if(stamp == drawnStamps[row])
+				continue;
+
+			if(sg == null)
+				sg = stack.getGraphics();
+			int y = (row - passiveNumRows) * tileSize;
+			sg.drawImage(background, 0, y, width, y + tileSize, 0, y, width, y + tileSize, null);
+			for(int word = 0; word << 6 < numOfColums; word++)
+			{
+				for(long bits = state.getRowWord(row, word); bits != 0; bits &= bits - 1)
+				{
+					int col = (word << 6) + Long.numberOfTrailingZeros(bits);
+					drawTile(state.getTile(col, row), col * tileSize, y, sg);
+				}
+			}
+			drawnStamps[row] = stamp;
+		}
+		if(sg != null)
+			sg.dispose();
+	}
+	/**
+	 * Creates an opaque layer for the screen
+	 * @param config -- configuration of the screen, null for a plain image
+	 * @param width -- width
+	 * @param height -- height
+	 * @return -- layer
+	 */
+	private static BufferedImage createLayer(GraphicsConfiguration config, int width, int height){
+		return (config != null) ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+				: new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+	/**
+	 * Draws the tile
+	 * @param type -- specific piece
+	 * @param col -- column.
+	 * @param row -- row.
+	 * @param g -- graphics object
+	 */
+	private void drawTile(Piece type, int col, int row, Graphics g){
+		sprites.drawTile(type, col, row, g);
+	}
+
+}
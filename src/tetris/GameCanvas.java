@@ -0,0 +1,89 @@
+/**
+ * Active rendering. The board and the menu are drawn straight into a buffer
+ * strategy by the game loop and shown right away, instead of asking Swing to
+ * repaint later. The panels are never added to a window, only their drawing
+ * code is used.
+ */
+package tetris;
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+public class GameCanvas extends Canvas {
+
+	private static final long serialVersionUID = 1L;
+
+	private GameBoard board;
+	private Menu side;
+	private int buffers;
+	private volatile boolean exposed = true;	//set when the window system asks for a paint
+
+	/**
+	 * Creates a canvas for the board and the menu
+	 * @param board -- board panel to draw with
+	 * @param side -- menu panel to draw with
+	 * @param buffers -- 2 for double buffering, 3 for triple buffering
+	 */
+	public GameCanvas(GameBoard board, Menu side, int buffers){
+		this.board = board;
+		this.side = side;
+		this.buffers = buffers;
+
+		board.setSize(board.getPreferredSize());
+		side.setSize(side.getPreferredSize());
+		setPreferredSize(new Dimension(board.getWidth() + side.getWidth(), Math.max(board.getHeight(), side.getHeight())));
+		setFocusable(false);	//keys stay with the window
+	}
+	@Override
+	public void paint(Graphics g){
+		exposed = true;		//drawn by the game loop
+	}
+	@Override
+	public void update(Graphics g){
+		exposed = true;
+	}
+	/**
+	 * Checks if the window system lost the picture since the last frame
+	 * @return -- if a frame has to be drawn even though nothing changed
+	 */
+	public boolean isExposed(){
+		return exposed;
+	}
+	/**
+	 * Draws a frame and shows it
+	 */
+	public void render(){
+		if(!isDisplayable())
+			return;
+
+		BufferStrategy strategy = getBufferStrategy();
+		if(strategy == null)
+		{
+			createBufferStrategy(buffers);
+			strategy = getBufferStrategy();
+		}
+		exposed = false;
+
+		do
+		{
+			do
+			{
+				Graphics g = strategy.getDrawGraphics();
+				Graphics boardGraphics = g.create(0, 0, board.getWidth(), board.getHeight());
+				board.paintComponent(boardGraphics);
+				boardGraphics.dispose();
+				Graphics sideGraphics = g.create(board.getWidth(), 0, side.getWidth(), side.getHeight());
+				side.paintComponent(sideGraphics);
+				sideGraphics.dispose();
+				g.dispose();
+			}
+			while(strategy.contentsRestored());
+			strategy.show();
+		}
+		while(strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+	}
+}
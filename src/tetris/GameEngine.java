@@ -0,0 +1,517 @@
+/**
+ * The game rules without any display. Moves, gravity, scoring and leveling
+ * all happen here, the Swing classes only draw what the engine holds. Every
+ * change that shows on screen bumps a version number, so the window only has
+ * to repaint when the version moved. The engine belongs to one thread, other
+ * threads only read the snapshots it publishes. Every game draws its pieces
+ * from a seed of its own and the engine counts its frames, so a game can be
+ * recorded as its seed and the inputs of every frame, and played again. The
+ * whole game state can be written out and read back for replay keyframes.
+ * With metrics set the gravity steps, line scans and collision checks are timed.
+ */
+package tetris;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+public class GameEngine {
+	private static final Piece[] pieceTypes = Piece.values();
+	private static final int pieceNum = pieceTypes.length; //num pieces
+	private static final long seedGamma = 0x9E3779B97F4A7C15L;	//steps from one game seed to the next
+
+	private boolean isPaused, isNewGame, hasGameEnded;
+	private int level, score, lines, actualColumn, actualRow, actualRotation, droppingRest;
+	private long pieces, seed, gameSeed, nextGameSeed, frames, draws;	//draws = pieces drawn this game
+	private ReplayRecorder recorder;
+	private GameMetrics metrics;
+	private long version;
+	private volatile GameSnapshot snapshot;	//last published state, read by the renderers
+	private float gameSpeed;
+
+	private SplittableRandom random;
+	private Time logicTimer;
+	private BoardModel board;
+	private ClearedRows cleared = new ClearedRows();	//lines of the last lock
+	private Piece currentPiece, nextPiece;
+
+	/**
+	 * Creates an engine on the wall clock that waits for a start input
+	 * @param seed -- seed of the piece sequence
+	 */
+	public GameEngine(long seed){
+		this(seed, Clock.wall);
+	}
+	/**
+	 * Creates an engine that waits for a start input
+	 * @param seed -- seed of the piece sequence
+	 * @param clock -- time source of the gravity timer, a VirtualClock plays the same on every run
+	 */
+	public GameEngine(long seed, Clock clock){
+		this(seed, clock, BoardModel.numOfColums, BoardModel.activeNumRows);
+	}
+	/**
+	 * Creates an engine on a board of any size that waits for a start input
+	 * @param seed -- seed of the piece sequence
+	 * @param clock -- time source of the gravity timer, a VirtualClock plays the same on every run
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 */
+	public GameEngine(long seed, Clock clock, int columns, int rows){
+		this.seed = seed;
+		this.nextGameSeed = seed;		//the first game plays the engine seed
+		this.random = new SplittableRandom(seed);
+		this.board = new BoardModel(columns, rows);
+		this.isNewGame = true;
+		this.gameSpeed = 1.0f;
+
+		this.logicTimer = new Time(gameSpeed, clock);		//game hold until user starts
+		logicTimer.setPaused(true);
+		publish();
+	}
+	/**
+	 * Gets the seed of the piece sequence
+	 * @return -- seed
+	 */
+	public long getSeed(){
+		return seed;
+	}
+	/**
+	 * Gets the state version, it grows with every change that shows on screen
+	 * @return -- version
+	 */
+	public long getVersion(){
+		return version;
+	}
+	/**
+	 * Gets the seed of the pieces of the current game
+	 * @return -- game seed
+	 */
+	public long getGameSeed(){
+		return gameSeed;
+	}
+	/**
+	 * Gets the number of frames run so far
+	 * @return -- frames
+	 */
+	public long getFrameCount(){
+		return frames;
+	}
+	/**
+	 * Sets the recorder that is told about every game and input
+	 * @param recorder -- recorder, null for none
+	 */
+	public void setRecorder(ReplayRecorder recorder){
+		this.recorder = recorder;
+	}
+	/**
+	 * Sets the histograms the engine times its hot paths into
+	 * @param metrics -- histograms, null to time nothing
+	 */
+	public void setMetrics(GameMetrics metrics){
+		this.metrics = metrics;
+	}
+	/**
+	 * Publishes a snapshot of the current state if anything changed since the last one
+	 * @return -- the current snapshot
+	 */
+	public GameSnapshot publish(){
+		GameSnapshot current = snapshot;
+		if(current == null || current.getVersion() != version || current.getBoardChanges() != board.getChanges())
+			snapshot = current = new GameSnapshot(this, current);
+		return current;
+	}
+	/**
+	 * Gets the last published snapshot, safe from any thread
+	 * @return -- snapshot
+	 */
+	public GameSnapshot getSnapshot(){
+		return snapshot;
+	}
+	/**
+	 * Gets the board
+	 * @return -- board model
+	 */
+	public BoardModel getBoard(){
+		return board;
+	}
+	/**
+	 * Gets the rows the last locked piece cleared, only valid on the engine thread
+	 * until the next lock
+	 * @return -- rows before the clear, from the top down
+	 */
+	public ClearedRows getClearedRows(){
+		return cleared;
+	}
+	/**
+	 * Gets the column of the current piece
+	 * @return -- column
+	 */
+	public int getColumn(){
+		return actualColumn;
+	}
+	/**
+	 * Gets the row of the current piece
+	 * @return -- row
+	 */
+	public int getRow(){
+		return actualRow;
+	}
+	/**
+	 * Gets score.
+	 * @return -- score.
+	 */
+	public int getScore(){
+		return score;
+	}
+	/**
+	 * Gets level
+	 * @return -- level
+	 */
+	public int getLevel(){
+		return level;
+	}
+	/**
+	 * Gets the number of lines cleared this game
+	 * @return -- lines
+	 */
+	public int getLines(){
+		return lines;
+	}
+	/**
+	 * Gets the number of pieces locked this game
+	 * @return -- pieces
+	 */
+	public long getPieceCount(){
+		return pieces;
+	}
+	/**
+	 * Gets the rotation of the current piece
+	 * @return -- rotation
+	 */
+	public int getRotation(){
+		return actualRotation;
+	}
+	/**
+	 * Gets the piece
+	 * @return -- piece type.
+	 */
+	public Piece getPiece(){
+		return currentPiece;
+	}
+	/**
+	 * Gets the next of piece
+	 * @return -- next piece
+	 */
+	public Piece getNextPiece(){
+		return nextPiece;
+	}
+	/**
+	 * Checks to see if the game is paused
+	 * @return -- if the game is paused
+	 */
+	public boolean isPaused(){
+		return isPaused;
+	}
+	/**
+	 * Checks to see if the game is over
+	 * @return -- if the game is over
+	 */
+	public boolean hasGameEnded(){
+		return hasGameEnded;
+	}
+	/**
+	 * Checks to see if it is a new game
+	 * @return -- if we are in a new game
+	 */
+	public boolean isNewGame(){
+		return isNewGame;
+	}
+	/**
+	 * Checks to see if a piece is falling
+	 * @return -- if the game is running
+	 */
+	public boolean isRunning(){
+		return !isPaused && !isNewGame && !hasGameEnded;
+	}
+	/**
+	 * Applies a player action right away
+	 * @param input -- the action
+	 */
+	public void input(Input input){
+		if(recorder != null)
+			recorder.record(this, input);
+
+		switch(input) {
+
+		case SOFT_DROP:
+			if(!isPaused && droppingRest == 0) {
+				logicTimer.setCyclesPerSecond(25.0f);
+			}
+			break;
+
+		case SOFT_DROP_RELEASE:
+			logicTimer.setCyclesPerSecond(gameSpeed);
+			if(isRunning())		//a reset also starts a paused timer
+				logicTimer.reset();
+			break;
+
+		case HARD_DROP:
+			if(isRunning() && droppingRest == 0) {
+				actualRow += board.dropDistance(currentPiece, actualColumn, actualRow, actualRotation);
+				updateGame();		//resting, so this locks it
+			}
+			break;
+
+		case LEFT:		//no piece before the first start
+			if(!isPaused && !isNewGame && fits(actualColumn - 1, actualRow, actualRotation)) {
+				actualColumn--;
+				version++;
+			}
+			break;
+
+		case RIGHT:
+			if(!isPaused && !isNewGame && fits(actualColumn + 1, actualRow, actualRotation)) {
+				actualColumn++;
+				version++;
+			}
+			break;
+
+		case ROTATE_LEFT:
+			if(!isPaused && !isNewGame) {
+				rotatePiece((actualRotation == 0) ? 3 : actualRotation - 1);
+			}
+			break;
+
+		case ROTATE_RIGHT:
+			if(!isPaused && !isNewGame) {
+				rotatePiece((actualRotation == 3) ? 0 : actualRotation + 1);
+			}
+			break;
+
+		case PAUSE:
+			if(!hasGameEnded && !isNewGame) {
+				isPaused = !isPaused;
+				logicTimer.setPaused(isPaused);
+				version++;
+			}
+			break;
+
+		case START:
+			if(hasGameEnded || isNewGame) {
+				gameReset();
+			}
+			break;
+		}
+	}
+	/**
+	 * Runs one frame on the logic timer, gravity only moves once a cycle has passed
+	 */
+	public void frame(){
+		frames++;		//counted first, a game over in this frame belongs to it
+		logicTimer.update();
+
+		if(logicTimer.hasCycleFinished())
+			updateGame();
+		if(droppingRest > 0)
+			droppingRest--;
+		if(recorder != null)
+			recorder.frame(this);
+	}
+	/**
+	 * Applies the input and moves gravity one cycle without waiting on the timer.
+	 * This drives the engine at full speed when nothing is displayed. No frames
+	 * pass between steps, so the drops are not held back after a lock.
+	 * @param input -- the action, null for none
+	 */
+	public void step(Input input){
+		this.droppingRest = 0;		//the rest after a lock is counted in frames
+		if(input != null)
+			input(input);
+		if(isRunning())
+			updateGame();
+	}
+	private void updateGame() {
+		long start = (metrics != null) ? System.nanoTime() : 0;
+		version++;		//the piece either falls or locks
+		if(fits(actualColumn, actualRow + 1, actualRotation))
+			actualRow++;
+		else
+		{
+			board.addGamePiece(currentPiece, actualColumn, actualRow, actualRotation);
+			pieces++;
+
+			int wipe = scanLines();		//1 = 100pts, 2 = 200pts, 3 = 400pts, 4 = 800pts
+			if(wipe > 0){
+				score += 50 << wipe;
+				lines += wipe;
+			}
+
+			gameSpeed += 0.035f;		//speed and timer
+			logicTimer.setCyclesPerSecond(gameSpeed);
+			logicTimer.reset();
+			droppingRest = 25;
+
+			level = (int)(gameSpeed * 1.70f);		//difficulty
+
+			pieceGenerate();
+		}
+		if(metrics != null)
+			metrics.updateGame.since(start);
+	}
+	/**
+	 * Checks if the current piece fits, timed when metrics are set
+	 * @param col -- column
+	 * @param row -- row
+	 * @param rotation -- rotation
+	 * @return -- if it fits
+	 */
+	private boolean fits(int col, int row, int rotation){
+		if(metrics == null)
+			return board.canPieceInsert(currentPiece, col, row, rotation);
+
+		long start = System.nanoTime();
+		boolean fits = board.canPieceInsert(currentPiece, col, row, rotation);
+		metrics.pieceFits.since(start);
+		return fits;
+	}
+	/**
+	 * Removes the full lines, timed when metrics are set
+	 * @return -- lines removed
+	 */
+	private int scanLines(){
+		if(metrics == null)
+			return board.lineScan(cleared);
+
+		long start = System.nanoTime();
+		int wipe = board.lineScan(cleared);
+		metrics.lineScan.since(start);
+		return wipe;
+	}
+	/**
+	 *Resets game and variables
+	 */
+	private void gameReset(){
+		this.level = 1;
+		this.score = 0;
+		this.lines = 0;
+		this.pieces = 0;
+		this.gameSpeed = 1.0f;
+		this.droppingRest = 0;
+		this.gameSeed = nextGameSeed;
+		this.nextGameSeed += seedGamma;
+		this.random = new SplittableRandom(gameSeed);
+		this.draws = 0;
+		this.nextPiece = drawPiece();
+		this.isNewGame = false;
+		this.hasGameEnded = false;
+		this.version++;
+
+		board.wipe();
+		cleared.clear();
+		logicTimer.reset();
+		logicTimer.setCyclesPerSecond(gameSpeed);
+		pieceGenerate();
+		if(recorder != null)
+			recorder.begin(this);
+	}
+	/**
+	 * Generates a new piece and resets
+	 */
+	private void pieceGenerate(){
+		this.currentPiece = nextPiece;
+		this.actualColumn = board.getSpawnColumn(currentPiece);
+		this.actualRow = currentPiece.getRowGenerate();
+		this.actualRotation = 0;
+		this.nextPiece = drawPiece();
+
+		if(!fits(actualColumn, actualRow, actualRotation))	//game over if generate point is invalid
+		{
+			this.hasGameEnded = true;
+			logicTimer.setPaused(true);
+			if(recorder != null)
+				recorder.end(this);
+		}
+	}
+	/**
+	 * Draws the next piece of the game
+	 * @return -- piece type
+	 */
+	private Piece drawPiece(){
+		draws++;
+		return pieceTypes[random.nextInt(pieceNum)];
+	}
+	/**
+	 * Writes the state of the running game for a replay keyframe. The random
+	 * pieces are kept as the number drawn from the game seed.
+	 * @param out -- output
+	 * @throws IOException -- if the output fails
+	 */
+	void writeKeyframe(DataOutput out) throws IOException {
+		out.writeInt(level);
+		out.writeInt(score);
+		out.writeInt(lines);
+		out.writeLong(pieces);
+		out.writeLong(draws);
+		out.writeFloat(gameSpeed);
+		out.writeByte(currentPiece.ordinal());
+		out.writeByte(nextPiece.ordinal());
+		out.writeShort(actualColumn);
+		out.writeShort(actualRow);
+		out.writeByte(actualRotation);
+		out.writeByte(droppingRest);
+		out.writeBoolean(isPaused);
+		logicTimer.write(out);
+		board.write(out);
+	}
+	/**
+	 * Puts the engine into the game state of a replay keyframe
+	 * @param in -- keyframe, positioned at the engine state
+	 * @param gameSeed -- seed of the recorded game
+	 */
+	void readKeyframe(ByteBuffer in, long gameSeed){
+		this.level = in.getInt();
+		this.score = in.getInt();
+		this.lines = in.getInt();
+		this.pieces = in.getLong();
+		long drawn = in.getLong();
+		this.gameSpeed = in.getFloat();
+		this.currentPiece = pieceTypes[in.get()];
+		this.nextPiece = pieceTypes[in.get()];
+		this.actualColumn = in.getShort();
+		this.actualRow = in.getShort();
+		this.actualRotation = in.get();
+		this.droppingRest = in.get();
+		this.isPaused = in.get() != 0;
+		logicTimer.read(in);
+		board.read(in);
+
+		this.gameSeed = gameSeed;
+		this.nextGameSeed = gameSeed + seedGamma;
+		this.random = new SplittableRandom(gameSeed);
+		for(this.draws = 0; draws < drawn; draws++)	//a few ns per piece
+		{
+			random.nextInt(pieceNum);
+		}
+		this.isNewGame = false;
+		this.hasGameEnded = false;
+		this.version++;
+	}
+	/**
+	 * Sets the rotation to newRotation.
+	 * @param newRotation -- the rotation of the new piece.
+	 */
+	private void rotatePiece(int newRotation){
+		int newColumn = board.clampColumn(currentPiece, actualColumn, newRotation);	//kept inside of the walls
+		int newRow = board.clampRow(currentPiece, actualRow, newRotation);
+
+		if(fits(newColumn, newRow, newRotation))
+		{
+			actualRotation = newRotation;
+			actualRow = newRow;
+			actualColumn = newColumn;
+			version++;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * Fixed timestep scheduler. Logic ticks run at a fixed rate on a nanosecond
+ * schedule, a late loop catches up a bounded number of ticks and drops the
+ * rest instead of running the game in fast forward. Frames are drawn at their
+ * own rate(or as often as possible) and get the fraction of the tick that has
+ * passed, so movement can be drawn in between two logic states. Waiting parks
+ * the thread and spins through the last few microseconds, since a park alone
+ * wakes up late by tens of microseconds or more. The lateness of every tick
+ * against its planned time is kept for a jitter report. With metrics set the
+ * ticks, the frames and how late each wait wakes up go into histograms. An
+ * optional poll runs on every pass, between the ticks as well, and names the
+ * next time it wants to run, and wake cuts a wait short, so keys can be
+ * applied as soon as they come in instead of at the next tick.
+ */
+package tetris;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongUnaryOperator;
+
+public class GameLoop {
+
+	private static final long spinNanos = 100000L;		//spin instead of park for the last 100 us
+	private static final long lateNanos = 1000000L;		//ticks later than 1 ms count as late
+
+	private long tickNanos, renderNanos;
+	private int maxCatchUp;
+	private Runnable tick;
+	private DoubleConsumer render;
+	private LongUnaryOperator poll;		//gets System.nanoTime, returns when it wants to run next
+	private volatile boolean running, woken;
+	private volatile Thread thread;
+	private GameMetrics metrics;
+
+	private long ticks, droppedTicks, lateTicks, frames, maxJitter;
+	private double meanJitter, jitterSquares;	//running mean and summed squared deviation
+
+	/**
+	 * Creates a loop
+	 * @param tickRate -- logic ticks per second
+	 * @param renderRate -- frames per second, 0 to draw as often as possible
+	 * @param maxCatchUp -- most ticks run back to back when the loop is late
+	 * @param tick -- one logic tick
+	 * @param render -- draws a frame, gets the passed fraction of the current tick from 0 to 1
+	 */
+	public GameLoop(double tickRate, double renderRate, int maxCatchUp, Runnable tick, DoubleConsumer render){
+		this.tickNanos = (long)(1e9 / tickRate);
+		this.renderNanos = (renderRate > 0) ? (long)(1e9 / renderRate) : 0;
+		this.maxCatchUp = maxCatchUp;
+		this.tick = tick;
+		this.render = render;
+	}
+	/**
+	 * Sets the histograms the loop times its ticks, frames and waits into
+	 * @param metrics -- histograms, null to time nothing
+	 */
+	public void setMetrics(GameMetrics metrics){
+		this.metrics = metrics;
+	}
+	/**
+	 * Sets the poll that runs at the start of every pass
+	 * @param poll -- gets System.nanoTime and returns the System.nanoTime it wants to run again
+	 * at(Long.MAX_VALUE for the next tick or frame), null for none
+	 */
+	public void setPoll(LongUnaryOperator poll){
+		this.poll = poll;
+	}
+	/**
+	 * Ends the current wait so the poll runs at once, may be called from any thread
+	 */
+	public void wake(){
+		woken = true;
+		Thread loop = thread;
+		if(loop != null)
+			LockSupport.unpark(loop);
+	}
+	/**
+	 * Runs ticks and frames until stop is called
+	 */
+	public void run(){
+		running = true;
+		thread = Thread.currentThread();
+		long nextTick = System.nanoTime();
+		long nextFrame = nextTick;
+
+		while(running)
+		{
+			long now = System.nanoTime();
+			long nextPoll = Long.MAX_VALUE;
+			woken = false;		//a wake from now on ends the next wait
+			if(poll != null)
+				nextPoll = poll.applyAsLong(now);
+			for(int caught = 0; now >= nextTick && caught < maxCatchUp; caught++)
+			{
+				record(now - nextTick);
+				tick.run();
+				nextTick += tickNanos;
+				long done = System.nanoTime();
+				if(metrics != null)
+					metrics.tick.record(done - now);
+				now = done;
+			}
+			if(now >= nextTick)		//too far behind, start over from now
+			{
+				long behind = (now - nextTick) / tickNanos + 1;
+				droppedTicks += behind;
+				nextTick += behind * tickNanos;
+			}
+
+			if(renderNanos == 0 || now >= nextFrame)
+			{
+				double alpha = 1.0 - (double)(nextTick - now) / tickNanos;
+				render.accept(Math.min(1.0, Math.max(0.0, alpha)));
+				if(metrics != null)
+					metrics.render.since(now);
+				frames++;
+				nextFrame += renderNanos;
+				if(nextFrame < now)
+					nextFrame = now + renderNanos;	//no burst of frames after a stall
+			}
+
+			if(renderNanos == 0)
+				Thread.yield();
+			else
+			{
+				long deadline = Math.min(Math.min(nextTick, nextFrame), nextPoll);
+				long woke = waitUntil(deadline);
+				if(metrics != null && woke - deadline >= 0)		//not cut short by wake
+					metrics.oversleep.record(woke - deadline);
+			}
+		}
+	}
+	/**
+	 * Stops the loop after the current pass
+	 */
+	public void stop(){
+		running = false;
+	}
+	/**
+	 * Parks the thread until shortly before the deadline and spins the rest of
+	 * the way, or until wake is called
+	 * @param deadline -- System.nanoTime to wake up at
+	 * @return -- System.nanoTime after waking up
+	 */
+	private long waitUntil(long deadline){
+		long remaining;
+		while((remaining = deadline - System.nanoTime()) > spinNanos && !woken)
+		{
+			LockSupport.parkNanos(remaining - spinNanos);
+		}
+		long now;
+		while(deadline - (now = System.nanoTime()) > 0 && !woken)
+		{
+			Thread.onSpinWait();
+		}
+		return now;
+	}
+	/**
+	 * Adds the lateness of one tick to the jitter report
+	 */
+	private void record(long late){
+		ticks++;
+		double delta = late - meanJitter;
+		meanJitter += delta / ticks;
+		jitterSquares += delta * (late - meanJitter);
+		maxJitter = Math.max(maxJitter, late);
+		if(late > lateNanos)
+			lateTicks++;
+	}
+	/**
+	 * Gets the number of ticks run
+	 * @return -- ticks
+	 */
+	public long getTicks(){
+		return ticks;
+	}
+	/**
+	 * Gets the number of ticks given up because the loop was too far behind
+	 * @return -- dropped ticks
+	 */
+	public long getDroppedTicks(){
+		return droppedTicks;
+	}
+	/**
+	 * Gets the number of frames drawn
+	 * @return -- frames
+	 */
+	public long getFrames(){
+		return frames;
+	}
+	/**
+	 * Gets the mean time a tick started after its planned time
+	 * @return -- nanoseconds
+	 */
+	public double getMeanJitter(){
+		return meanJitter;
+	}
+	/**
+	 * Gets the longest time a tick started after its planned time
+	 * @return -- nanoseconds
+	 */
+	public long getMaxJitter(){
+		return maxJitter;
+	}
+	/**
+	 * Gets the standard deviation of the tick lateness
+	 * @return -- nanoseconds
+	 */
+	public double getJitterDeviation(){
+		return (ticks < 2) ? 0 : Math.sqrt(jitterSquares / (ticks - 1));
+	}
+	/**
+	 * Gets a report of the planned against the actual tick times
+	 * @return -- report
+	 */
+	public String getJitterReport(){
+		return String.format("ticks: %d, dropped: %d, late(>1 ms): %d, lateness mean %.1f us, std dev %.1f us, max %.1f us; frames: %d",
+				ticks, droppedTicks, lateTicks, meanJitter / 1e3, getJitterDeviation() / 1e3, maxJitter / 1e3, frames);
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Latency histograms of the stages of the game loop: the logic tick and the
+ * frame, how late the loop wakes up from its waits, how long a key waits in
+ * the queue until a tick applies it, and the engine and paint calls inside of
+ * them. Each histogram can be watched as a platform MXBean named
+ * tetris:type=Latency,name=<stage>, and a daemon thread can append all of them
+ * to a file at a fixed period.
+ */
+package tetris;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class GameMetrics {
+
+	public final LatencyHistogram tick = new LatencyHistogram("tick");				//one logic tick
+	public final LatencyHistogram render = new LatencyHistogram("render");			//one drawn frame
+	public final LatencyHistogram oversleep = new LatencyHistogram("oversleep");	//wake up after the deadline
+	public final LatencyHistogram inputDelay = new LatencyHistogram("inputDelay");	//key press to tick
+	public final LatencyHistogram updateGame = new LatencyHistogram("updateGame");	//gravity step or lock
+	public final LatencyHistogram lineScan = new LatencyHistogram("lineScan");
+	public final LatencyHistogram pieceFits = new LatencyHistogram("canPieceInsert");	//engine collision checks
+	public final LatencyHistogram paintBoard = new LatencyHistogram("paintBoard");
+	public final LatencyHistogram paintMenu = new LatencyHistogram("paintMenu");
+
+	private final LatencyHistogram[] all = {tick, render, oversleep, inputDelay, updateGame, lineScan, pieceFits, paintBoard, paintMenu};
+
+	/**
+	 * Gets every histogram
+	 * @return -- histograms, in a fixed order
+	 */
+	public LatencyHistogram[] getHistograms(){
+		return all.clone();
+	}
+	/**
+	 * Registers the histograms with the platform MBean server, one MXBean each
+	 * @throws JMException -- if a name is taken
+	 */
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for(LatencyHistogram histogram : all)
+		{
+			server.registerMBean(histogram, new ObjectName("tetris:type=Latency,name=" + histogram.getName()));
+		}
+	}
+	/**
+	 * Appends every histogram to a file at a fixed period, on a daemon thread
+	 * @param file -- file to append to
+	 * @param periodSeconds -- seconds between two dumps
+	 */
+	public void startDump(Path file, long periodSeconds){
+		ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+	/**
+	 * Appends every histogram to a file, one line each with the time of the dump
+	 * @param file -- file to append to
+	 */
+	public void dump(Path file){
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))
+		{
+			String time = Instant.now().toString();
+			for(LatencyHistogram histogram : all)
+			{
+				out.println(time + " " + histogram);
+			}
+		}
+		catch(IOException e)
+		{
+			System.out.println("metrics not written: " + e);
+		}
+	}
+	@Override
+	public String toString(){
+		StringBuilder report = new StringBuilder();
+		for(LatencyHistogram histogram : all)
+		{
+			if(histogram.getCount() > 0)
+				report.append(histogram).append(System.lineSeparator());
+		}
+		return report.toString().trim();
+	}
+}
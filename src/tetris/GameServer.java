@@ -0,0 +1,189 @@
+/**
+ * Headless game server. Clients connect over TCP and each gets a game of its
+ * own that the server runs: the clients only send keys, gravity, locks and
+ * new pieces all happen on the server. One thread does all the network I/O on
+ * a selector, accepting connections and reading keys into the input queues of
+ * the sessions. The sessions are plain objects, not threads, a tick scheduler
+ * runs all of them in batches on a few worker threads, which also write the
+ * states back. See GameSession and StateEncoder for what goes over the wire.
+ */
+package tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GameServer {
+
+	static final double tickRate = 50.0;		//ticks per second, the same as the window
+	private static final long frameNanos = (long)(1e9 / tickRate);
+	private static final int maxCatchUp = 5;
+	private static final int backlog = 1024;
+	private static final long dasNanos = 167000000L, arrNanos = 33000000L;	//auto repeat of the window
+
+	private InetSocketAddress address;
+	private int columns, rows;
+	private ServerSocketChannel server;
+	private Selector selector;
+	private TickScheduler scheduler;
+	private SplittableRandom seeds = new SplittableRandom();
+	private ByteBuffer in = ByteBuffer.allocateDirect(4096);	//shared by every read, they are all on the I/O thread
+	private LongAdder accepted = new LongAdder();
+	private volatile boolean running;
+
+	/**
+	 * Creates a server
+	 * @param address -- address to listen on, port 0 picks a free one
+	 * @param workers -- tick threads
+	 * @param columns -- board columns of the games
+	 * @param rows -- board rows in play of the games
+	 */
+	public GameServer(InetSocketAddress address, int workers, int columns, int rows){
+		this.address = address;
+		this.columns = columns;
+		this.rows = rows;
+		this.scheduler = new TickScheduler(tickRate, workers, maxCatchUp, GameSession.maxMessageBytes(columns, rows));
+	}
+	/**
+	 * Opens the port and starts the I/O thread and the tick scheduler
+	 * @throws IOException -- if the port cannot be opened
+	 */
+	public void start() throws IOException {
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		server.bind(address, backlog);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+
+		this.running = true;
+		scheduler.start();
+		Thread thread = new Thread(this::serve, "server-io");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	/**
+	 * Gets the port the server listens on
+	 * @return -- port
+	 */
+	public int getPort(){
+		return server.socket().getLocalPort();
+	}
+	/**
+	 * Gets the scheduler that ticks the sessions
+	 * @return -- scheduler
+	 */
+	public TickScheduler getScheduler(){
+		return scheduler;
+	}
+	/**
+	 * Gets the number of connections accepted so far
+	 * @return -- connections
+	 */
+	public long getAccepted(){
+		return accepted.sum();
+	}
+	/**
+	 * Stops the server, the sessions are closed by their tick threads
+	 */
+	public void stop(){
+		this.running = false;
+		scheduler.stop();
+		selector.wakeup();
+	}
+	/**
+	 * Runs the selector until the server stops
+	 */
+	private void serve(){
+		try
+		{
+			while(running)
+			{
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext())
+				{
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(!key.isValid())
+						continue;
+					if(key.isAcceptable())
+						accept();
+					else if(key.isReadable())
+						read(key);
+				}
+			}
+			selector.close();
+			server.close();
+		}
+		catch(IOException e)
+		{
+			System.out.println("server stopped: " + e);
+		}
+	}
+	/**
+	 * Takes every waiting connection and gives it a session
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while((channel = server.accept()) != null)
+		{
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			GameSession session = new GameSession(channel, seeds.nextLong(), columns, rows, frameNanos, new AutoShift(dasNanos, arrNanos));
+			channel.register(selector, SelectionKey.OP_READ, session);
+			scheduler.add(session);
+			accepted.increment();
+		}
+	}
+	/**
+	 * Reads the keys of a session, a closed connection or a bad key ends it
+	 */
+	private void read(SelectionKey key){
+		GameSession session = (GameSession)key.attachment();
+		in.clear();
+		int read;
+		try
+		{
+			read = ((SocketChannel)key.channel()).read(in);
+		}
+		catch(IOException e)
+		{
+			read = -1;
+		}
+		in.flip();
+		if(read < 0 || !session.receive(in, System.nanoTime()))
+		{
+			key.cancel();
+			session.close();
+		}
+	}
+	/**
+	 * Runs a server until the process is stopped, printing the tick report every 10 seconds
+	 * args: port(default 7777), tick threads, board columns, board rows
+	 * @throws IOException -- if the port cannot be opened
+	 * @throws InterruptedException -- if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7777;
+		int workers = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int columns = (args.length > 2) ? Integer.parseInt(args[2]) : BoardModel.numOfColums;
+		int rows = (args.length > 3) ? Integer.parseInt(args[3]) : BoardModel.activeNumRows;
+
+		GameServer server = new GameServer(new InetSocketAddress(port), workers, columns, rows);
+		server.start();
+		System.out.println("listening on port " + server.getPort() + " with " + workers + " tick threads");
+		while(true)
+		{
+			Thread.sleep(10000);
+			System.out.print(server.getScheduler().getReport());
+		}
+	}
+}
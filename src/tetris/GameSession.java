@@ -0,0 +1,225 @@
+/**
+ * One remote game on the server. The client sends one byte per key, the
+ * ordinal of the input with the top bit set for a key going up, the same
+ * keys the window queues. The I/O thread drops them into an input queue and
+ * the tick scheduler drains it, so only the scheduler thread touches the
+ * engine. A key going up that finds the queue full waits as a pending bit
+ * the way it does in the window, so a piece never slides on to the wall. Every tick runs one engine frame on a virtual clock, and left and
+ * right repeat on that clock, so the server plays a game the same way however
+ * late its ticks run. After every tick that changed the game a message goes
+ * back to the client, a snapshot first and then only what changed(see
+ * StateEncoder). The message is written into a buffer of the shard's pool,
+ * which goes back to the pool once the socket took all of it. A client that
+ * does not keep up gets one message with everything since its last one once
+ * its socket has room again.
+ */
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameSession {
+
+	private static final Input[] values = Input.values();
+	private static final int released = 0x80;		//flag on the ordinal of a key going up
+	private static final int queueSize = 64;
+
+	private SocketChannel channel;
+	private GameEngine engine;
+	private VirtualClock clock = new VirtualClock();
+	private InputQueue inputs = new InputQueue(queueSize);
+	private AutoShift shift;
+	private long frameNanos;
+	private StateEncoder encoder = new StateEncoder();
+	private ByteBuffer out;		//message still being written, null if there is none
+	private AtomicInteger pendingReleases = new AtomicInteger();	//bit per input ordinal of the key-ups the full queue did not take
+	private volatile long droppedInputs;		//only written by the I/O thread
+	private volatile boolean closed;
+
+	/**
+	 * Creates a session waiting for a start input
+	 * @param channel -- connection of the client, non-blocking
+	 * @param seed -- seed of the piece sequence
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 * @param frameNanos -- game time of one tick
+	 * @param shift -- auto repeat of left and right, only used by this session
+	 */
+	public GameSession(SocketChannel channel, long seed, int columns, int rows, long frameNanos, AutoShift shift){
+		this.channel = channel;
+		this.engine = new GameEngine(seed, clock, columns, rows);
+		this.frameNanos = frameNanos;
+		this.shift = shift;
+	}
+	/**
+	 * Gets the most bytes one message of a board size takes, the size of the pooled buffers
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 * @return -- bytes
+	 */
+	public static int maxMessageBytes(int columns, int rows){
+		return StateEncoder.maxBytes(columns, rows + BoardModel.passiveNumRows);
+	}
+	/**
+	 * Gets the engine, only safe on the scheduler thread
+	 * @return -- engine
+	 */
+	public GameEngine getEngine(){
+		return engine;
+	}
+	/**
+	 * Queues the keys read from the client, called on the I/O thread. No key
+	 * goes in ahead of a key-up that is still waiting, a key-up that does not
+	 * fit waits as well, any other key that does not fit is dropped.
+	 * @param in -- bytes read, from the position to the limit
+	 * @param time -- System.nanoTime of the read
+	 * @return -- false if a byte is no input, the session should be closed
+	 */
+	boolean receive(ByteBuffer in, long time){
+		while(in.hasRemaining())
+		{
+			int key = in.get() & 0xFF;
+			if((key & ~released) >= values.length)
+				return false;
+			Input input = values[key & ~released];
+			boolean up = (key & released) != 0;
+			if(!offerPending(time) || !inputs.offer(input, up, time))
+			{
+				if(up || input == Input.SOFT_DROP_RELEASE)
+					pendingReleases.accumulateAndGet(1 << input.ordinal(), (bits, bit) -> bits | bit);
+				else
+					droppedInputs++;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Queues the key-ups that are waiting, called on the I/O thread
+	 * @param time -- System.nanoTime
+	 * @return -- false if the queue is full and some still wait
+	 */
+	private boolean offerPending(long time){
+		for(int bits = pendingReleases.getAndSet(0); bits != 0; bits &= bits - 1)
+		{
+			Input input = values[Integer.numberOfTrailingZeros(bits)];
+			if(!inputs.offer(input, input != Input.SOFT_DROP_RELEASE, time))
+			{
+				pendingReleases.accumulateAndGet(bits, (left, more) -> left | more);
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Runs one tick: applies the queued keys, then the key-ups that found the
+	 * queue full, the auto repeat and one engine frame, then sends what
+	 * changed. Called on the scheduler thread.
+	 * @param inputDelay -- gets the time from the read of each key to the tick that applies it
+	 * @param pool -- buffers of the scheduler thread
+	 */
+	void tick(LatencyHistogram inputDelay, BufferPool pool){
+		long now = clock.nanoTime();
+		for(Input input = inputs.poll(); input != null; input = inputs.poll())
+		{
+			inputDelay.since(inputs.getPolledTime());
+			if(input == Input.LEFT || input == Input.RIGHT)
+			{
+				if(inputs.isPolledRelease())
+					shift.release(input, now);
+				else
+				{
+					shift.press(input, now);
+					shift.update(engine, now);	//moves at once, a release in the same tick would undo the tap
+				}
+			}
+			else if(!inputs.isPolledRelease())
+				engine.input(input);
+		}
+		for(int pending = pendingReleases.getAndSet(0); pending != 0; pending &= pending - 1)	//a key read after them queues them first
+		{
+			Input input = values[Integer.numberOfTrailingZeros(pending)];
+			if(input == Input.LEFT || input == Input.RIGHT)
+				shift.release(input, now);
+			else if(input == Input.SOFT_DROP_RELEASE)
+				engine.input(input);
+		}
+		shift.update(engine, now);
+		clock.advance(frameNanos);
+		engine.frame();
+
+		if(flush(pool) && encoder.hasChanges(engine))
+			send(pool);
+	}
+	/**
+	 * Sends what changed since the last message
+	 * @param pool -- buffers of the scheduler thread
+	 */
+	private void send(BufferPool pool){
+		this.out = pool.acquire();
+		encoder.encode(engine, out);
+		out.flip();
+		flush(pool);
+	}
+	/**
+	 * Writes what is left of the last message, its buffer goes back to the pool once all of it went out
+	 * @param pool -- buffers of the scheduler thread
+	 * @return -- true if nothing is left to write and the session is still open
+	 */
+	private boolean flush(BufferPool pool){
+		if(out == null)
+			return true;
+		try
+		{
+			channel.write(out);
+		}
+		catch(IOException e)
+		{
+			close();
+		}
+		if(out.hasRemaining() && !closed)
+			return false;
+		pool.release(out);
+		this.out = null;
+		return !closed;
+	}
+	/**
+	 * Gives back the buffer of a message that did not go out, once the session is closed
+	 * @param pool -- buffers of the scheduler thread
+	 */
+	void recycle(BufferPool pool){
+		if(out == null)
+			return;
+		pool.release(out);
+		this.out = null;
+	}
+	/**
+	 * Gets the keys dropped because the queue was full, key-ups are never dropped
+	 * @return -- inputs
+	 */
+	public long getDroppedInputs(){
+		return droppedInputs;
+	}
+	/**
+	 * Checks if the session is over, the scheduler drops it at its next tick
+	 * @return -- if it was closed
+	 */
+	public boolean isClosed(){
+		return closed;
+	}
+	/**
+	 * Closes the connection, may be called from any thread
+	 */
+	public void close(){
+		this.closed = true;
+		try
+		{
+			channel.close();
+		}
+		catch(IOException e)
+		{
+			//closed either way
+		}
+	}
+}
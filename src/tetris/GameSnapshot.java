@@ -0,0 +1,196 @@
+/**
+ * Read only copy of everything the renderers draw, taken by the logic thread
+ * after a tick and handed to the renderers through one volatile reference.
+ * Nothing in a snapshot changes after it is published, so a frame never shows
+ * half of a tick. The board arrays are shared with the previous snapshot while
+ * the board stays the same, so a move only costs the small object.
+ */
+package tetris;
+
+public final class GameSnapshot {
+
+	private static final Piece[] pieces = Piece.values();
+
+	private final long version, boardChanges;
+	private final int width, words;
+	private final long[] rows;
+	private final byte[] colors;
+	private final long[] stamps;
+	private final Piece piece, nextPiece;
+	private final int column, row, rotation, ghostRow;
+	private final int score, level, lines;
+	private final boolean paused, newGame, ended;
+
+	/**
+	 * Takes a snapshot of an engine
+	 * @param engine -- engine, only read by the thread that runs it
+	 * @param previous -- last snapshot, its board arrays are reused if the board did not change
+	 */
+	GameSnapshot(GameEngine engine, GameSnapshot previous){
+		BoardModel board = engine.getBoard();
+		this.version = engine.getVersion();
+		this.boardChanges = board.getChanges();
+		this.width = board.getWidth();
+		this.words = board.getWords();
+
+		if(previous != null && previous.boardChanges == boardChanges)
+		{
+			this.rows = previous.rows;
+			this.colors = previous.colors;
+			this.stamps = previous.stamps;
+		}
+		else
+		{
+			this.rows = new long[board.getHeight() * words];
+			this.colors = new byte[board.getHeight() * width];
+			this.stamps = new long[board.getHeight()];
+			board.copyTo(rows, colors, stamps);
+		}
+
+		this.piece = engine.getPiece();
+		this.nextPiece = engine.getNextPiece();
+		this.column = engine.getColumn();
+		this.row = engine.getRow();
+		this.rotation = engine.getRotation();
+		this.score = engine.getScore();
+		this.level = engine.getLevel();
+		this.lines = engine.getLines();
+		this.paused = engine.isPaused();
+		this.newGame = engine.isNewGame();
+		this.ended = engine.hasGameEnded();
+		this.ghostRow = (engine.isRunning() && board.canPieceInsert(piece, column, row, rotation))
+				? row + board.dropDistance(piece, column, row, rotation) : row;
+	}
+	/**
+	 * Gets the engine version the snapshot shows
+	 * @return -- version
+	 */
+	public long getVersion(){
+		return version;
+	}
+	/**
+	 * Gets the number of board changes the snapshot shows
+	 * @return -- board change count
+	 */
+	public long getBoardChanges(){
+		return boardChanges;
+	}
+	/**
+	 * Gets the occupancy of 64 columns of a row
+	 * @param row -- row
+	 * @param word -- long of the row, from 0 to the words of the board
+	 * @return -- bitmask(bit n = column 64 * word + n)
+	 */
+	public long getRowWord(int row, int word){
+		return rows[row * words + word];
+	}
+	/**
+	 * Gets the stamp of a row
+	 * @param row -- row
+	 * @return -- stamp, it changes every time the row does
+	 */
+	public long getRowStamp(int row){
+		return stamps[row];
+	}
+	/**
+	 * Gets a tile based on the col/row pair
+	 * @param col -- column
+	 * @param row -- row
+	 * @return -- the piece on the tile, null if empty
+	 */
+	public Piece getTile(int col, int row){
+		int color = colors[row * width + col];
+		return (color == 0) ? null : pieces[color - 1];
+	}
+	/**
+	 * Gets the falling piece
+	 * @return -- piece type
+	 */
+	public Piece getPiece(){
+		return piece;
+	}
+	/**
+	 * Gets the next piece
+	 * @return -- next piece
+	 */
+	public Piece getNextPiece(){
+		return nextPiece;
+	}
+	/**
+	 * Gets the column of the falling piece
+	 * @return -- column
+	 */
+	public int getColumn(){
+		return column;
+	}
+	/**
+	 * Gets the row of the falling piece
+	 * @return -- row
+	 */
+	public int getPieceRow(){
+		return row;
+	}
+	/**
+	 * Gets the rotation of the falling piece
+	 * @return -- rotation
+	 */
+	public int getRotation(){
+		return rotation;
+	}
+	/**
+	 * Gets the row the falling piece would land on
+	 * @return -- ghost row
+	 */
+	public int getGhostRow(){
+		return ghostRow;
+	}
+	/**
+	 * Gets score
+	 * @return -- score
+	 */
+	public int getScore(){
+		return score;
+	}
+	/**
+	 * Gets level
+	 * @return -- level
+	 */
+	public int getLevel(){
+		return level;
+	}
+	/**
+	 * Gets the lines cleared this game
+	 * @return -- lines
+	 */
+	public int getLines(){
+		return lines;
+	}
+	/**
+	 * Checks if the game was paused
+	 * @return -- if the game is paused
+	 */
+	public boolean isPaused(){
+		return paused;
+	}
+	/**
+	 * Checks if no game was started yet
+	 * @return -- if this is a new game
+	 */
+	public boolean isNewGame(){
+		return newGame;
+	}
+	/**
+	 * Checks if the game was over
+	 * @return -- if the game is over
+	 */
+	public boolean hasGameEnded(){
+		return ended;
+	}
+	/**
+	 * Checks if a piece was falling
+	 * @return -- if the game is running
+	 */
+	public boolean isRunning(){
+		return !paused && !newGame && !ended;
+	}
+}
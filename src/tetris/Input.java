@@ -0,0 +1,16 @@
+/**
+ * Player actions understood by the game engine
+ */
+package tetris;
+
+public enum Input{
+	LEFT,				//move one column left
+	RIGHT,				//move one column right
+	ROTATE_LEFT,		//counter clockwise
+	ROTATE_RIGHT,		//clockwise
+	SOFT_DROP,			//speed the drop up
+	SOFT_DROP_RELEASE,	//back to the level speed
+	HARD_DROP,			//drops and locks the piece at once
+	PAUSE,				//toggles the pause
+	START				//starts a new game once the old one is over
+}
@@ -0,0 +1,93 @@
+/**
+ * Lock free single producer, single consumer ring buffer of inputs. In the
+ * window the event thread offers the keys and the game loop drains them in
+ * its poll, which runs on every pass of the loop, between the ticks too, so
+ * a key is applied as soon as the loop wakes up for it. On the server the I/O
+ * thread offers the keys read from a client and the tick scheduler drains
+ * them at the start of the session's tick. Either way only the thread that
+ * drains the queue touches the engine. Each side writes its own
+ * volatile index and only reads the other one, no locks and no allocation.
+ * An entry is either a key going down or, for held keys, going up.
+ */
+package tetris;
+
+public class InputQueue {
+
+	private static final Input[] values = Input.values();
+	private static final int released = 0x80;	//flag on the ordinal of a key going up
+
+	private byte[] inputs;		//input ordinals, with the released flag
+	private long[] times;		//System.nanoTime of each offer
+	private int mask;
+	private volatile long head;	//next slot to read, written by the consumer
+	private volatile long tail;	//next slot to write, written by the producer
+	private long polledTime;
+	private boolean polledRelease;
+
+	/**
+	 * Creates a queue
+	 * @param capacity -- slots, rounded up to a power of two
+	 */
+	public InputQueue(int capacity){
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+		this.inputs = new byte[size];
+		this.times = new long[size];
+		this.mask = size - 1;
+	}
+	/**
+	 * Adds an input, only called by the producer thread
+	 * @param input -- the action
+	 * @param time -- System.nanoTime of the key
+	 * @return -- false if the queue was full and the input was dropped
+	 */
+	public boolean offer(Input input, long time){
+		return offer(input, false, time);
+	}
+	/**
+	 * Adds a key going down or up, only called by the producer thread
+	 * @param input -- the action of the key
+	 * @param release -- true if the key went up
+	 * @param time -- System.nanoTime of the key
+	 * @return -- false if the queue was full and the input was dropped
+	 */
+	public boolean offer(Input input, boolean release, long time){
+		long slot = tail;
+		if(slot - head > mask)
+			return false;
+
+		inputs[(int)slot & mask] = (byte)(input.ordinal() | (release ? released : 0));
+		times[(int)slot & mask] = time;
+		tail = slot + 1;	//publishes the slot
+		return true;
+	}
+	/**
+	 * Takes the oldest input, only called by the consumer thread
+	 * @return -- the action, null if the queue is empty
+	 */
+	public Input poll(){
+		long slot = head;
+		if(slot == tail)
+			return null;
+
+		int entry = inputs[(int)slot & mask] & 0xFF;
+		Input input = values[entry & ~released];
+		this.polledRelease = (entry & released) != 0;
+		this.polledTime = times[(int)slot & mask];
+		head = slot + 1;	//hands the slot back
+		return input;
+	}
+	/**
+	 * Checks if the last polled input was a key going up
+	 * @return -- if it was released
+	 */
+	public boolean isPolledRelease(){
+		return polledRelease;
+	}
+	/**
+	 * Gets the time of the last polled input
+	 * @return -- System.nanoTime of its offer
+	 */
+	public long getPolledTime(){
+		return polledTime;
+	}
+}
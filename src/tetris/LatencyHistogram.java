@@ -0,0 +1,145 @@
+/**
+ * Log linear histogram of nanosecond times in the manner of HdrHistogram. Every
+ * power of two is split into 32 buckets, so a bucket is never wider than about
+ * 3% of its values, and times up to 2^40 ns(18 minutes) fit in 1152 long
+ * buckets that are allocated once. Recording is a few shifts and an increment,
+ * nothing is allocated. One thread records, other threads may read at any time
+ * and see counts that are at most a few records behind. A reset from another
+ * thread only asks for one, the recording thread clears the buckets before
+ * its next record, so the counts never get torn by it.
+ */
+package tetris;
+
+import java.util.Arrays;
+
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+	private static final int subBits = 5;
+	private static final int subBuckets = 1 << subBits;		//buckets per power of two
+	private static final int maxShift = 39 - subBits;	//highest value 2^40 - 1
+	private static final long maxValue = ((2L * subBuckets) << maxShift) - 1;
+
+	private String name;
+	private long[] counts = new long[(maxShift + 2) * subBuckets];
+	private volatile long count;		//written last, so a reader sees whole records
+	private long total, max;
+	private volatile boolean resetting;		//a reset was asked for, done by the next record
+
+	/**
+	 * Creates an empty histogram
+	 * @param name -- stage being timed
+	 */
+	public LatencyHistogram(String name){
+		this.name = name;
+	}
+	/**
+	 * Gets the name of the timed stage
+	 * @return -- name
+	 */
+	public String getName(){
+		return name;
+	}
+	/**
+	 * Records one time
+	 * @param nanos -- nanoseconds, negative ones count as 0
+	 */
+	public void record(long nanos){
+		if(resetting)
+			clear();
+		long value = Math.max(0, Math.min(nanos, maxValue));
+		counts[bucket(value)]++;
+		total += value;
+		if(value > max)
+			max = value;
+		count++;
+	}
+	/**
+	 * Records the time since a start
+	 * @param start -- System.nanoTime at the start
+	 */
+	public void since(long start){
+		record(System.nanoTime() - start);
+	}
+	/**
+	 * Gets the bucket of a value: the values under 64 have one bucket each, above
+	 * that the top six bits pick the bucket within the power of two
+	 */
+	private static int bucket(long value){
+		int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - subBits);
+		return (shift << subBits) + (int)(value >>> shift);
+	}
+	/**
+	 * Gets the highest value of a bucket
+	 */
+	private static long highest(int bucket){
+		int shift = Math.max(0, (bucket >>> subBits) - 1);
+		return (((long)bucket - (shift << subBits) + 1) << shift) - 1;
+	}
+	/**
+	 * Gets the value a share of the recorded times stays under
+	 * @param percentile -- from 0 to 100
+	 * @return -- nanoseconds, the top of the bucket it falls in
+	 */
+	public long getValueAtPercentile(double percentile){
+		long recorded = count;
+		if(recorded == 0)
+			return 0;
+
+		long wanted = Math.max(1, (long)Math.ceil(percentile / 100.0 * recorded));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++)
+		{
+			seen += counts[i];
+			if(seen >= wanted)
+				return Math.min(highest(i), max);
+		}
+		return max;
+	}
+	@Override
+	public long getCount(){
+		return count;
+	}
+	@Override
+	public double getMean(){
+		long recorded = count;
+		return (recorded == 0) ? 0 : total / 1e3 / recorded;
+	}
+	@Override
+	public double getP50(){
+		return getValueAtPercentile(50) / 1e3;
+	}
+	@Override
+	public double getP99(){
+		return getValueAtPercentile(99) / 1e3;
+	}
+	@Override
+	public double getP999(){
+		return getValueAtPercentile(99.9) / 1e3;
+	}
+	@Override
+	public double getMax(){
+		return max / 1e3;
+	}
+	/**
+	 * Clears the histogram before the next record, may be called from any thread
+	 */
+	@Override
+	public void reset(){
+		this.resetting = true;
+	}
+	/**
+	 * Clears the buckets, on the recording thread
+	 */
+	private void clear(){
+		this.resetting = false;
+		Arrays.fill(counts, 0);
+		this.total = 0;
+		this.max = 0;
+		this.count = 0;
+	}
+	@Override
+	public String toString(){
+		return String.format("%s: %d, mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+				name, getCount(), getMean(), getP50(), getP99(), getP999(), getMax());
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * Management view of one latency histogram, all times in microseconds.
+ */
+package tetris;
+
+public interface LatencyHistogramMXBean {
+
+	/**
+	 * Gets the number of recorded times
+	 * @return -- count
+	 */
+	long getCount();
+	/**
+	 * Gets the mean time
+	 * @return -- microseconds
+	 */
+	double getMean();
+	/**
+	 * Gets the median time
+	 * @return -- microseconds
+	 */
+	double getP50();
+	/**
+	 * Gets the time 99% of the recorded ones stay under
+	 * @return -- microseconds
+	 */
+	double getP99();
+	/**
+	 * Gets the time 99.9% of the recorded ones stay under
+	 * @return -- microseconds
+	 */
+	double getP999();
+	/**
+	 * Gets the longest time
+	 * @return -- microseconds
+	 */
+	double getMax();
+	/**
+	 * Clears the histogram, the recording thread does it before its next record
+	 */
+	void reset();
+}
@@ -0,0 +1,89 @@
+/**
+ * Measures how long a key takes to show up on screen and how long a frame
+ * takes to draw. A key that changed the game is remembered with the engine
+ * version it produced, the first frame that shows that version or a later one
+ * ends the measurement. Frame times are kept as a running mean and variance.
+ * Keys are reported by the logic thread and frames by the thread that draws,
+ * the pending key is handed over through volatile fields without a lock.
+ */
+package tetris;
+
+public class LatencyProbe {
+
+	private volatile long pendingTime, pendingVersion = -1;	//key waiting to be shown, set while pendingVersion < 0
+
+	private long samples, maxLatency;
+	private double meanLatency;
+
+	private long frames;
+	private double meanFrame, squares;		//running mean and summed squared deviation
+
+	/**
+	 * Remembers a key that changed the game
+	 * @param version -- engine version after the key
+	 * @param time -- System.nanoTime when the key was pressed
+	 */
+	public void input(long version, long time){
+		if(pendingVersion < 0)
+		{
+			this.pendingTime = time;
+			this.pendingVersion = version;
+		}
+	}
+	/**
+	 * Counts a frame that is now on screen
+	 * @param version -- engine version the frame shows
+	 * @param start -- System.nanoTime when drawing started
+	 */
+	public void presented(long version, long start){
+		long now = System.nanoTime();
+		long pending = pendingVersion;
+		if(pending >= 0 && version >= pending)
+		{
+			long latency = now - pendingTime;
+			samples++;
+			meanLatency += (latency - meanLatency) / samples;
+			maxLatency = Math.max(maxLatency, latency);
+			this.pendingVersion = -1;
+		}
+
+		double time = now - start;
+		frames++;
+		double delta = time - meanFrame;
+		meanFrame += delta / frames;
+		squares += delta * (time - meanFrame);
+	}
+	/**
+	 * Gets the mean time from a key to the frame that shows it
+	 * @return -- nanoseconds
+	 */
+	public double getMeanLatency(){
+		return meanLatency;
+	}
+	/**
+	 * Gets the longest time from a key to the frame that shows it
+	 * @return -- nanoseconds
+	 */
+	public long getMaxLatency(){
+		return maxLatency;
+	}
+	/**
+	 * Gets the mean time to draw a frame
+	 * @return -- nanoseconds
+	 */
+	public double getMeanFrameTime(){
+		return meanFrame;
+	}
+	/**
+	 * Gets the variance of the time to draw a frame
+	 * @return -- squared nanoseconds
+	 */
+	public double getFrameTimeVariance(){
+		return (frames < 2) ? 0 : squares / (frames - 1);
+	}
+	@Override
+	public String toString(){
+		return String.format("keys: %d, latency mean %.2f ms, max %.2f ms; frames: %d, frame time mean %.3f ms, std dev %.3f ms",
+				samples, meanLatency / 1e6, maxLatency / 1e6, frames, meanFrame / 1e6, Math.sqrt(getFrameTimeVariance()) / 1e6);
+	}
+}
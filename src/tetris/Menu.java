@@ -2,6 +2,8 @@
  * All aspects of the panel not involved in the actual game play.
  * Next Piece, Score, Current Level, Game Controls
  */
+package tetris;
+
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -9,7 +11,9 @@ import java.awt.Graphics;
 import javax.swing.JPanel;
 
 public class Menu extends JPanel{
-	private playGame tetris;
+	private GameEngine tetris;
+	private TileSprites sprites;
+	private GameMetrics metrics;
 	private static final long serialVersionUID = 1L;
 	//npp = next piece preview
 	private static final int nppCenterX = 150;
@@ -29,57 +33,69 @@ public class Menu extends JPanel{
 	private static final Font large = new Font("Fixedsys", Font.BOLD, 19);
 	/**
 	 * Creates a menu panel
-	 * @param tetris -- tetris instance
+	 * @param tetris -- game engine to draw
 	 */
-	public Menu(playGame tetris) {
+	public Menu(GameEngine tetris) {
 		this.tetris = tetris;
-		setPreferredSize(new Dimension(200, GameBoard.boardHeight));
+		this.sprites = new TileSprites(nppTileSize, nppIndent);
+		setPreferredSize(new Dimension(200, Math.max(GameBoard.boardHeight, GameBoard.getPanelHeight(tetris.getBoard().getActiveRows()))));
 		setBackground(Color.DARK_GRAY);
 	}
+	/**
+	 * Sets the histograms the paint times go into
+	 * @param metrics -- histograms, null to time nothing
+	 */
+	public void setMetrics(GameMetrics metrics){
+		this.metrics = metrics;
+	}
 	@Override
 	public void paintComponent(Graphics g){
+		long start = System.nanoTime();
 		super.paintComponent(g);
 		g.setColor(Color.LIGHT_GRAY);
 		int offset;
+		GameSnapshot state = tetris.getSnapshot();
 		
 		g.setFont(large);
 		g.drawString("Stats", smallSpacer, offset = statsLoc);
 		g.setFont(regular);
-		g.drawString("Level: " + tetris.getLevel(), smallSpacer, offset += largeSpacer);
-		g.drawString("Score: " + tetris.getScore(), smallSpacer, offset += largeSpacer);
+		g.drawString("Level: " + state.getLevel(), smallSpacer, offset += largeSpacer);
+		g.drawString("Score: " + state.getScore(), smallSpacer, offset += largeSpacer);
 		g.setFont(large);
 		g.drawString("Controls", smallSpacer, offset = controlsLoc);
 		g.setFont(regular);
 		g.drawString("Move Left -- A / Left Arrow", smallSpacer, offset += largeSpacer);
 		g.drawString("Move Right -- D / Right Arrow", smallSpacer, offset += largeSpacer);
 		g.drawString("Drop Piece -- S / Down Arrow", smallSpacer, offset += largeSpacer);
+		g.drawString("Hard Drop -- Space", smallSpacer, offset += largeSpacer);
 		g.drawString("Rotate(left and right) -- Q and E", smallSpacer, offset += largeSpacer);
 		g.drawString("Pause Game -- P", smallSpacer, offset += largeSpacer);
+		g.drawString("Autoplay -- B", smallSpacer, offset += largeSpacer);
 		g.setFont(large);
 		g.drawString("Next Piece:", smallSpacer, 70);
 		g.drawRect(nppCenterX - nppSquare, nppCenterY - nppSquare, nppSquare * 2, nppSquare * 2);
 		
-		Piece type = tetris.getNextPiece();
-		if(!tetris.hasGameEnded() && type != null)
+		Piece type = state.getNextPiece();
+		if(!state.hasGameEnded() && type != null)
 		{
+			sprites.validate(g);
 			int c = type.getNumberOfColumns();
 			int r = type.getNumberOfRows();
-			int dim = type.getDimension();
 			
 			int xBeginning = (nppCenterX - (c * nppTileSize / 2));
 			int yBeginning = (nppCenterY - (r * nppTileSize / 2));
 			int top = type.getSpaceTop(0);
 			int left = type.getSpaceLeft(0);
 
-			for(int i = 0; i < dim; i++)
+			for(int cell = 0; cell < type.getCellCount(0); cell++)
 			{
-				for(int j = 0; j < dim; j++)
-				{
-					if(type.isTilePresent(j, i, 0))
-						drawTile(type, xBeginning + ((j - left) * nppTileSize), yBeginning + ((i - top) * nppTileSize), g);
-				}
+				int j = type.getCellX(0, cell);
+				int i = type.getCellY(0, cell);
+				drawTile(type, xBeginning + ((j - left) * nppTileSize), yBeginning + ((i - top) * nppTileSize), g);
 			}
 		}
+		if(metrics != null)
+			metrics.paintMenu.since(start);
 	}	
 	/**
 	 * Draws a tile in the preview section
@@ -89,18 +105,7 @@ public class Menu extends JPanel{
 	 * @param g -- graphics object
 	 */
 	private void drawTile(Piece type, int x, int y, Graphics g){
-		g.setColor(type.getColor());
-		g.fillRect(x, y, nppTileSize, nppTileSize);
-		g.setColor(type.getDarker());
-		g.fillRect(x, y + nppTileSize - nppIndent, nppTileSize, nppIndent);
-		g.fillRect(x + nppTileSize - nppIndent, y, nppIndent, nppTileSize);
-		g.setColor(type.getLighter());
-		
-		for(int i = 0; i < nppIndent; i++)
-		{
-			g.drawLine(x, y + i, x + nppTileSize - i - 1, y + i);
-			g.drawLine(x + i, y, x + i, y + nppTileSize - i - 1);
-		}
+		sprites.drawTile(type, x, y, g);
 	}
 	
 }
@@ -1,6 +1,8 @@
 /**
  *Class that handles the piece functions an game piece functionality
  */
+package tetris;
+
 import java.awt.Color;
 
 public enum Piece{					//tetris pieces(alphabetically)
@@ -201,15 +203,20 @@ public enum Piece{					//tetris pieces(alphabetically)
 	private Color base;
 	private Color lighter;
 	private Color darker;
-	private int columnGenerate;
 	private int rowGenerate;
 	private int dimension;
 	private int numOfRows;
 	private int numOfColumns;
-	private boolean[][] tiles;
+	
+	private int[] spaceLeft, spaceRight, spaceTop, spaceBottom;	//per rotation margins
+	private int[][] rowMasks;		//[rotation][row], bit n set = tile in column n
+	private int[][] cellX, cellY;	//[rotation][cell], occupied tiles inside of the piece
+	private int[][] bottomProfile;	//[rotation][column], lowest tile of each column, -1 if empty
+	private int[] shapeClass;		//first rotation with the same shape, ignoring the offset
 	
 	/**
-	 * Creates a new Piece.
+	 * Creates a new Piece. Every shape table is built here once, so nothing
+	 * has to scan the tiles after the class is loaded.
 	 * @param color -- beginning color
 	 * @param dimension -- dimensions of the tiles array
 	 * @param columns -- number of columns
@@ -221,13 +228,107 @@ public enum Piece{					//tetris pieces(alphabetically)
 		this.lighter = color.brighter();
 		this.darker = color.darker();
 		this.dimension = dimension;
-		this.tiles = tiles;
 		this.numOfColumns = columns;
 		this.numOfRows = rows;
 		
-		this.columnGenerate = 5 - (dimension >> 1);
+		int rotations = tiles.length;
+		this.spaceLeft = new int[rotations];
+		this.spaceRight = new int[rotations];
+		this.spaceTop = new int[rotations];
+		this.spaceBottom = new int[rotations];
+		this.rowMasks = new int[rotations][dimension];
+		this.cellX = new int[rotations][];
+		this.cellY = new int[rotations][];
+		this.bottomProfile = new int[rotations][dimension];
+		
+		for(int rotation = 0; rotation < rotations; rotation++)
+		{
+			int cells = 0;
+			int minX = dimension, maxX = -1, minY = dimension, maxY = -1;
+			
+			for(int y = 0; y < dimension; y++)
+			{
+				for(int x = 0; x < dimension; x++)
+				{
+					if(tiles[rotation][y * dimension + x])
+					{
+						rowMasks[rotation][y] |= 1 << x;
+						minX = Math.min(minX, x);
+						maxX = Math.max(maxX, x);
+						minY = Math.min(minY, y);
+						maxY = Math.max(maxY, y);
+						cells++;
+					}
+				}
+			}
+			spaceLeft[rotation] = minX;
+			spaceRight[rotation] = dimension - maxX;
+			spaceTop[rotation] = minY;
+			spaceBottom[rotation] = dimension - maxY;
+			
+			cellX[rotation] = new int[cells];
+			cellY[rotation] = new int[cells];
+			cells = 0;
+			for(int y = 0; y < dimension; y++)
+			{
+				for(int x = 0; x < dimension; x++)
+				{
+					if(tiles[rotation][y * dimension + x])
+					{
+						cellX[rotation][cells] = x;
+						cellY[rotation][cells++] = y;
+					}
+				}
+			}
+			
+			for(int x = 0; x < dimension; x++)
+			{
+				bottomProfile[rotation][x] = -1;
+				for(int y = dimension - 1; y >= 0; y--)
+				{
+					if(tiles[rotation][y * dimension + x])
+					{
+						bottomProfile[rotation][x] = y;
+						break;
+					}
+				}
+			}
+		}
+		
+		this.shapeClass = new int[rotations];
+		for(int rotation = 0; rotation < rotations; rotation++)
+		{
+			shapeClass[rotation] = rotation;
+			for(int other = 0; other < rotation; other++)
+			{
+				if(sameShape(rotation, other))
+				{
+					shapeClass[rotation] = other;
+					break;
+				}
+			}
+		}
+		
 		this.rowGenerate = getSpaceTop(0);
 	}
+	/**
+	 * Checks if two rotations cover the same tiles once moved to the top left
+	 * @param a -- first rotation
+	 * @param b -- second rotation
+	 * @return -- if the shapes match
+	 */
+	private boolean sameShape(int a, int b){
+		int rows = dimension - spaceBottom[a] - spaceTop[a] + 1;
+		if(rows != dimension - spaceBottom[b] - spaceTop[b] + 1)
+			return false;
+		
+		for(int y = 0; y < rows; y++)
+		{
+			if(rowMasks[a][y + spaceTop[a]] >>> spaceLeft[a] != rowMasks[b][y + spaceTop[b]] >>> spaceLeft[b])
+				return false;
+		}
+		return true;
+	}
 	/**
 	 * Gets the dimension
 	 * @return -- dimension
@@ -270,13 +371,6 @@ public enum Piece{					//tetris pieces(alphabetically)
 	public Color getDarker(){
 		return darker;
 	}
-	/**
-	 * Gets the generated column
-	 * @return -- generated column
-	 */
-	public int getColumnGenerate(){
-		return columnGenerate;
-	}
 	/**
 	 * Gets the generated row
 	 * @return -- generated row
@@ -292,7 +386,60 @@ public enum Piece{					//tetris pieces(alphabetically)
 	 * @return if the tile is present
 	 */
 	public boolean isTilePresent(int x, int y, int rotation){
-		return tiles[rotation][y * dimension + x];
+		return (rowMasks[rotation][y] & (1 << x)) != 0;
+	}
+	/**
+	 * Gets the tiles of one row as a bitmask(bit n = column n)
+	 * @param rotation -- rotation
+	 * @param y -- row inside of the piece
+	 * @return -- row bitmask
+	 */
+	public int getRowMask(int rotation, int y){
+		return rowMasks[rotation][y];
+	}
+	/**
+	 * Gets the number of occupied tiles
+	 * @param rotation -- rotation
+	 * @return -- number of tiles
+	 */
+	public int getCellCount(int rotation){
+		return cellX[rotation].length;
+	}
+	/**
+	 * Gets the column of an occupied tile inside of the piece
+	 * @param rotation -- rotation
+	 * @param cell -- index of the tile
+	 * @return -- x coordinate
+	 */
+	public int getCellX(int rotation, int cell){
+		return cellX[rotation][cell];
+	}
+	/**
+	 * Gets the row of an occupied tile inside of the piece
+	 * @param rotation -- rotation
+	 * @param cell -- index of the tile
+	 * @return -- y coordinate
+	 */
+	public int getCellY(int rotation, int cell){
+		return cellY[rotation][cell];
+	}
+	/**
+	 * Gets the lowest tile of a column inside of the piece
+	 * @param rotation -- rotation
+	 * @param x -- column inside of the piece
+	 * @return -- row of the lowest tile, -1 if the column is empty
+	 */
+	public int getColumnBottom(int rotation, int x){
+		return bottomProfile[rotation][x];
+	}
+	/**
+	 * Gets the first rotation that has the same shape. O has a single shape class,
+	 * I, S and Z have two, so placements can be told apart by class and position.
+	 * @param rotation -- rotation
+	 * @return -- lowest rotation with the same shape
+	 */
+	public int getShapeClass(int rotation){
+		return shapeClass[rotation];
 	}
 	/**
 	 * The method represents the number of empty columns on the left for the rotation
@@ -300,16 +447,7 @@ public enum Piece{					//tetris pieces(alphabetically)
 	 * @return this targeted space
 	 */
 	public int getSpaceLeft(int rotation){
-
-		for(int x = 0; x < dimension; x++)
-		{
-			for(int y = 0; y < dimension; y++)
-			{
-				if(isTilePresent(x, y, rotation))
-					return x;
-			}
-		}
-		return -1;
+		return spaceLeft[rotation];
 	}
 	/**
 	 * The method represents the number of empty columns on the bottom for the rotation
@@ -317,15 +455,7 @@ public enum Piece{					//tetris pieces(alphabetically)
 	 * @return this targeted space
 	 */
 	public int getSpaceBottom(int rotation){
-		for(int y = dimension - 1; y >= 0; y--)
-		{
-			for(int x = 0; x < dimension; x++)
-			{
-				if(isTilePresent(x, y, rotation)) 
-					return dimension - y;
-			}
-		}
-		return -1;
+		return spaceBottom[rotation];
 	}
 	/**
 	 * The method represents the number of empty columns on the right for the rotation
@@ -333,15 +463,7 @@ public enum Piece{					//tetris pieces(alphabetically)
 	 * @return this targeted space
 	 */
 	public int getSpaceRight(int rotation){
-		for(int x = dimension - 1; x >= 0; x--)
-		{
-			for(int y = 0; y < dimension; y++)
-			{
-				if(isTilePresent(x, y, rotation)) 
-					return dimension - x;
-			}
-		}
-		return -1;
+		return spaceRight[rotation];
 	}
 	/**
 	 * The method represents the number of empty columns on the top for the rotation
@@ -349,14 +471,6 @@ public enum Piece{					//tetris pieces(alphabetically)
 	 * @return this targeted space
 	 */
 	public int getSpaceTop(int rotation){
-		for(int y = 0; y < dimension; y++)
-		{
-			for(int x = 0; x < dimension; x++)
-			{
-				if(isTilePresent(x, y, rotation)) 
-					return y;
-			}
-		}
-		return -1;
+		return spaceTop[rotation];
 	}
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/**
+ * Finds every resting place a piece can reach from where it is, following the
+ * same rules as the game: a move left or right or a turn only happens if the
+ * piece fits, turns are clamped like GameEngine does, and gravity moves it down
+ * one row at a time. A breadth first search runs over (column, row, rotation),
+ * the visited states are kept in a bitset and nothing is allocated per search,
+ * the buffers only grow when a board of another size comes in.
+ */
+package tetris;
+
+import java.util.Arrays;
+
+public class PlacementGenerator {
+
+	private static final int colOffset = 4;	//pieces can stick out of the walls by their empty space
+	private static final int rowOffset = 4;
+	private static final int standardStates = 4 * (BoardModel.numOfColums + colOffset) * (BoardModel.totalNumRows + rowOffset);
+
+	private static final byte fromStart = 0, fromLeft = 1, fromRight = 2, fromRotateLeft = 3, fromRotateRight = 4, fromFall = 5;
+	private static final Input[] moveInputs = {null, Input.LEFT, Input.RIGHT, Input.ROTATE_LEFT, Input.ROTATE_RIGHT, null};
+
+	private int columns, rows;	//size of the board the buffers are laid out for
+	private int width, height, numStates;
+	private long[] visited;		//one bit per state
+	private long[] placed;		//one bit per shape class and top left tile, to drop copies of symmetric shapes
+	private int[] queue;
+	private int[] parent;
+	private byte[] move;
+
+	/**
+	 * Creates a generator with the buffers for the standard board
+	 */
+	public PlacementGenerator(){
+		fit(BoardModel.numOfColums, BoardModel.totalNumRows);
+	}
+	/**
+	 * Lays the buffers out for a board size, they are made again only if they are too small
+	 */
+	private void fit(int columns, int rows){
+		this.columns = columns;
+		this.rows = rows;
+		this.width = columns + colOffset;
+		this.height = rows + rowOffset;
+		this.numStates = 4 * width * height;
+		if(queue == null || queue.length < numStates)
+		{
+			this.visited = new long[(numStates + 63) >> 6];
+			this.placed = new long[(numStates + 63) >> 6];
+			this.queue = new int[numStates];
+			this.parent = new int[numStates];
+			this.move = new byte[numStates];
+		}
+	}
+	/**
+	 * Makes a buffer that can hold every placement of the standard board, it
+	 * grows for bigger boards
+	 * @return -- empty buffer
+	 */
+	public static Placements newBuffer(){
+		return new Placements(standardStates);
+	}
+	private int state(int col, int row, int rotation){
+		return (rotation * height + row + rowOffset) * width + col + colOffset;
+	}
+	private int column(int state){
+		return state % width - colOffset;
+	}
+	private int row(int state){
+		return (state / width) % height - rowOffset;
+	}
+	private int rotation(int state){
+		return state / (width * height);
+	}
+	private static boolean testAndSet(long[] bits, int index){
+		long bit = 1L << index;
+		if((bits[index >> 6] & bit) != 0)
+			return true;
+		bits[index >> 6] |= bit;
+		return false;
+	}
+	/**
+	 * Finds the placements of a piece from its spawn point
+	 * @param board -- board
+	 * @param type -- piece
+	 * @param out -- buffer the placements are written to
+	 * @return -- number of placements
+	 */
+	public int generate(BoardModel board, Piece type, Placements out){
+		return generate(board, type, board.getSpawnColumn(type), type.getRowGenerate(), 0, out);
+	}
+	/**
+	 * Finds the placements of a piece from the given position
+	 * @param board -- board
+	 * @param type -- piece
+	 * @param x -- starting column
+	 * @param y -- starting row
+	 * @param rotation -- starting rotation
+	 * @param out -- buffer the placements are written to
+	 * @return -- number of placements
+	 */
+	public int generate(BoardModel board, Piece type, int x, int y, int rotation, Placements out){
+		out.clear();
+		if(!board.canPieceInsert(type, x, y, rotation))
+			return 0;
+
+		if(board.getWidth() != columns || board.getHeight() != rows)
+			fit(board.getWidth(), board.getHeight());
+		Arrays.fill(visited, 0, (numStates + 63) >> 6, 0L);
+		Arrays.fill(placed, 0, (numStates + 63) >> 6, 0L);
+		int head = 0, tail = 0;
+
+		int start = state(x, y, rotation);
+		testAndSet(visited, start);
+		move[start] = fromStart;
+		queue[tail++] = start;
+
+		while(head < tail)
+		{
+			int current = queue[head++];
+			int col = column(current);
+			int row = row(current);
+			int rot = rotation(current);
+
+			tail = visit(board, type, current, col - 1, row, rot, fromLeft, tail);
+			tail = visit(board, type, current, col + 1, row, rot, fromRight, tail);
+
+			int turn = (rot == 0) ? 3 : rot - 1;
+			tail = visit(board, type, current, board.clampColumn(type, col, turn), board.clampRow(type, row, turn), turn, fromRotateLeft, tail);
+			turn = (rot == 3) ? 0 : rot + 1;
+			tail = visit(board, type, current, board.clampColumn(type, col, turn), board.clampRow(type, row, turn), turn, fromRotateRight, tail);
+
+			if(board.canPieceInsert(type, col, row + 1, rot))
+				tail = visit(board, type, current, col, row + 1, rot, fromFall, tail);
+			else if(!testAndSet(placed, state(col + type.getSpaceLeft(rot), row + type.getSpaceTop(rot), type.getShapeClass(rot))))
+				out.add(col, row, rot, current);	//resting, and no other rotation covers these tiles
+		}
+		return out.size();
+	}
+	/**
+	 * Queues a state if it is new and the piece fits there. States that don't fit
+	 * are marked as visited too, so they are never tested twice.
+	 * @return -- new tail of the queue
+	 */
+	private int visit(BoardModel board, Piece type, int from, int col, int row, int rotation, byte how, int tail){
+		if(col < -colOffset || col >= columns || row < -rowOffset || row >= rows)
+			return tail;
+
+		int next = state(col, row, rotation);
+		if(testAndSet(visited, next) || !board.canPieceInsert(type, col, row, rotation))
+			return tail;
+
+		parent[next] = from;
+		move[next] = how;
+		queue[tail] = next;
+		return tail + 1;
+	}
+	/**
+	 * Rebuilds the moves that lead to a placement of the last search
+	 * @param out -- buffer of the last search
+	 * @param index -- placement
+	 * @param moves -- filled with the inputs in order, null stands for a gravity step
+	 * @return -- number of moves
+	 */
+	public int getPath(Placements out, int index, Input[] moves){
+		int length = 0;
+		for(int state = out.getState(index); move[state] != fromStart; state = parent[state])
+		{
+			length++;
+		}
+
+		int i = length;
+		for(int state = out.getState(index); move[state] != fromStart; state = parent[state])
+		{
+			moves[--i] = moveInputs[move[state]];
+		}
+		return length;
+	}
+	/**
+	 * Gets the longest path the last search can produce
+	 * @return -- size the moves buffer of getPath needs
+	 */
+	public int getMaxPathLength(){
+		return numStates;
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Reusable list of resting placements filled by the PlacementGenerator, it
+ * grows when a bigger board has more of them
+ */
+package tetris;
+
+import java.util.Arrays;
+
+public class Placements {
+
+	private int[] columns, rows, rotations, states;
+	private int size;
+
+	/**
+	 * Creates a buffer
+	 * @param capacity -- placements it can hold before it grows
+	 */
+	public Placements(int capacity){
+		this.columns = new int[capacity];
+		this.rows = new int[capacity];
+		this.rotations = new int[capacity];
+		this.states = new int[capacity];
+	}
+	/**
+	 * Empties the buffer
+	 */
+	public void clear(){
+		this.size = 0;
+	}
+	/**
+	 * Adds a placement
+	 * @param col -- column
+	 * @param row -- row
+	 * @param rotation -- rotation
+	 * @param state -- search state the placement was reached in
+	 */
+	void add(int col, int row, int rotation, int state){
+		if(size == states.length)
+		{
+			int capacity = size * 2 + 16;
+			this.columns = Arrays.copyOf(columns, capacity);
+			this.rows = Arrays.copyOf(rows, capacity);
+			this.rotations = Arrays.copyOf(rotations, capacity);
+			this.states = Arrays.copyOf(states, capacity);
+		}
+		columns[size] = col;
+		rows[size] = row;
+		rotations[size] = rotation;
+		states[size++] = state;
+	}
+	/**
+	 * Gets the number of placements
+	 * @return -- size
+	 */
+	public int size(){
+		return size;
+	}
+	/**
+	 * Gets the column of a placement
+	 * @param index -- placement
+	 * @return -- column
+	 */
+	public int getColumn(int index){
+		return columns[index];
+	}
+	/**
+	 * Gets the row of a placement
+	 * @param index -- placement
+	 * @return -- row
+	 */
+	public int getRow(int index){
+		return rows[index];
+	}
+	/**
+	 * Gets the rotation of a placement
+	 * @param index -- placement
+	 * @return -- rotation
+	 */
+	public int getRotation(int index){
+		return rotations[index];
+	}
+	/**
+	 * Gets the search state of a placement, used to rebuild the moves to it
+	 * @param index -- placement
+	 * @return -- state
+	 */
+	int getState(int index){
+		return states[index];
+	}
+}
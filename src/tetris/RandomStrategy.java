@@ -0,0 +1,27 @@
+/**
+ * Wiggles the piece at random on its way down. Used as a baseline
+ * and to keep the engine busy in benchmarks.
+ */
+package tetris;
+
+import java.util.SplittableRandom;
+
+public class RandomStrategy implements Strategy {
+
+	private static final Input[] moves = {Input.LEFT, Input.RIGHT, Input.ROTATE_LEFT, Input.ROTATE_RIGHT};
+
+	private SplittableRandom random;
+
+	/**
+	 * Creates a random strategy
+	 * @param seed -- seed of the moves
+	 */
+	public RandomStrategy(long seed){
+		this.random = new SplittableRandom(seed);
+	}
+	@Override
+	public Input next(GameEngine engine){
+		int pick = random.nextInt(moves.length * 2);	//half of the steps just fall
+		return (pick < moves.length) ? moves[pick] : null;
+	}
+}
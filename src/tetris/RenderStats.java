@@ -0,0 +1,56 @@
+/**
+ * Counts the frames of the game loop and how many of them were drawn. A frame
+ * is skipped when the game state did not change since the last drawn one, and
+ * idle when no piece was falling(title, pause or game over screen).
+ */
+package tetris;
+
+public class RenderStats {
+
+	private volatile long frames, painted, idle;	//written by the game loop only
+
+	/**
+	 * Counts one frame
+	 * @param paint -- if the frame was drawn
+	 * @param running -- if a piece was falling
+	 */
+	public void frame(boolean paint, boolean running){
+		frames++;
+		if(paint)
+			painted++;
+		if(!running)
+			idle++;
+	}
+	/**
+	 * Gets the number of frames
+	 * @return -- frames
+	 */
+	public long getFrames(){
+		return frames;
+	}
+	/**
+	 * Gets the number of frames that were drawn
+	 * @return -- painted frames
+	 */
+	public long getPainted(){
+		return painted;
+	}
+	/**
+	 * Gets the number of frames that were not drawn because nothing changed
+	 * @return -- skipped frames
+	 */
+	public long getSkipped(){
+		return frames - painted;
+	}
+	/**
+	 * Gets the number of frames without a falling piece
+	 * @return -- idle frames
+	 */
+	public long getIdle(){
+		return idle;
+	}
+	@Override
+	public String toString(){
+		return "frames: " + frames + ", painted: " + painted + ", skipped: " + getSkipped() + ", idle: " + idle;
+	}
+}
@@ -0,0 +1,294 @@
+/**
+ * One recorded game: the seed of its pieces, the game time of a frame and the
+ * inputs with the frame they came in, plus how the game stood at the end so a
+ * replay can be checked. The inputs are stored as one varint per input, the
+ * frames since the last input shifted left by four with the input in the low
+ * bits, so most inputs take a single byte and a whole game a few KB.
+ *
+ * Every few thousand frames a keyframe holds the whole game state, and an index
+ * at the end of the file lists them, so a player can jump to any frame by
+ * restoring the keyframe before it and playing only the rest. A replay reads
+ * everything straight out of one buffer, a file is memory mapped instead of
+ * read, so seeking through a large archive does not copy whole files.
+ *
+ * Layout: header(magic, seed, frame nanos, keyframe interval, inputs, input
+ * bytes, end frame, ended, score, lines, pieces, hash, board columns and rows),
+ * inputs, keyframes,
+ * index(frame and offset of every keyframe), footer(index offset, keyframes, magic).
+ */
+package tetris;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class Replay {
+
+	private static final int magic = 0x54525033;	//"TRP3"
+	static final int inputBits = 4;
+
+	private static final int seedAt = 4, frameNanosAt = 12, intervalAt = 20, eventCountAt = 24, eventBytesAt = 28,
+			endFrameAt = 32, endedAt = 40, scoreAt = 41, linesAt = 45, piecesAt = 49, hashAt = 57, columnsAt = 65, rowsAt = 69;
+	static final int headerBytes = 73;
+	static final int indexEntryBytes = 12;		//frame long, offset int
+	static final int footerBytes = 12;			//index offset int, keyframes int, magic int
+
+	private ByteBuffer data;
+	private int indexAt, keyframes;
+
+	/**
+	 * Wraps an encoded replay
+	 * @param data -- the whole replay, from position 0 to the limit
+	 * @throws IOException -- if the data holds no replay
+	 */
+	public Replay(ByteBuffer data) throws IOException {
+		this.data = data.asReadOnlyBuffer();
+		int size = this.data.limit();
+		if(size < headerBytes + footerBytes || this.data.getInt(0) != magic || this.data.getInt(size - 4) != magic)
+			throw new IOException("not a replay");
+
+		this.indexAt = this.data.getInt(size - footerBytes);
+		this.keyframes = this.data.getInt(size - footerBytes + 4);
+		if(indexAt < headerBytes || indexAt + (long)keyframes * indexEntryBytes != size - footerBytes)
+			throw new IOException("broken replay index");
+	}
+	/**
+	 * Maps a replay file into memory, nothing is copied onto the heap
+	 * @param file -- replay file
+	 * @return -- replay
+	 * @throws IOException -- if the file cannot be mapped or holds no replay
+	 */
+	public static Replay map(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			return new Replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));	//stays mapped after the close
+		}
+	}
+	/**
+	 * Reads a replay from a stream onto the heap
+	 * @param stream -- stream to read from
+	 * @return -- replay
+	 * @throws IOException -- if the stream fails or holds no replay
+	 */
+	public static Replay read(InputStream stream) throws IOException {
+		return new Replay(ByteBuffer.wrap(stream.readAllBytes()));
+	}
+	/**
+	 * Writes the replay
+	 * @param stream -- stream to write to
+	 * @throws IOException -- if the stream fails
+	 */
+	public void write(OutputStream stream) throws IOException {
+		Channels.newChannel(stream).write(data.duplicate().clear());
+		stream.flush();
+	}
+	/**
+	 * Gets the encoded size
+	 * @return -- bytes
+	 */
+	public int getSize(){
+		return data.limit();
+	}
+	/**
+	 * Gets the game seed
+	 * @return -- seed
+	 */
+	public long getSeed(){
+		return data.getLong(seedAt);
+	}
+	/**
+	 * Gets the game time of one frame
+	 * @return -- nanoseconds
+	 */
+	public long getFrameNanos(){
+		return data.getLong(frameNanosAt);
+	}
+	/**
+	 * Gets the frames between two keyframes
+	 * @return -- frames
+	 */
+	public int getKeyframeInterval(){
+		return data.getInt(intervalAt);
+	}
+	/**
+	 * Gets the encoded inputs
+	 * @return -- read only varint stream, from position 0
+	 */
+	public ByteBuffer getEvents(){
+		return data.duplicate().position(headerBytes).limit(headerBytes + data.getInt(eventBytesAt)).slice();
+	}
+	/**
+	 * Gets the number of inputs
+	 * @return -- inputs
+	 */
+	public int getEventCount(){
+		return data.getInt(eventCountAt);
+	}
+	/**
+	 * Gets the frames from the start to the end of the recording
+	 * @return -- frames
+	 */
+	public long getEndFrame(){
+		return data.getLong(endFrameAt);
+	}
+	/**
+	 * Checks if the game was over when the recording ended
+	 * @return -- if it was over
+	 */
+	public boolean hasEnded(){
+		return data.get(endedAt) != 0;
+	}
+	/**
+	 * Gets the score at the end
+	 * @return -- score
+	 */
+	public int getScore(){
+		return data.getInt(scoreAt);
+	}
+	/**
+	 * Gets the lines at the end
+	 * @return -- lines
+	 */
+	public int getLines(){
+		return data.getInt(linesAt);
+	}
+	/**
+	 * Gets the pieces locked at the end
+	 * @return -- pieces
+	 */
+	public long getPieces(){
+		return data.getLong(piecesAt);
+	}
+	/**
+	 * Gets the board hash at the end
+	 * @return -- hash
+	 */
+	public long getHash(){
+		return data.getLong(hashAt);
+	}
+	/**
+	 * Gets the columns of the board the game was played on
+	 * @return -- columns
+	 */
+	public int getColumns(){
+		return data.getInt(columnsAt);
+	}
+	/**
+	 * Gets the rows in play of the board the game was played on
+	 * @return -- rows
+	 */
+	public int getRows(){
+		return data.getInt(rowsAt);
+	}
+	/**
+	 * Gets the number of keyframes
+	 * @return -- keyframes
+	 */
+	public int getKeyframeCount(){
+		return keyframes;
+	}
+	/**
+	 * Gets the frame of a keyframe
+	 * @param index -- keyframe, from 0
+	 * @return -- frames since the start
+	 */
+	public long getKeyframeFrame(int index){
+		return data.getLong(indexAt + index * indexEntryBytes);
+	}
+	/**
+	 * Finds the last keyframe at or before a frame
+	 * @param frame -- frames since the start
+	 * @return -- keyframe, -1 if there is none
+	 */
+	public int findKeyframe(long frame){
+		int low = 0, high = keyframes - 1, found = -1;
+		while(low <= high)		//the index is sorted by frame
+		{
+			int middle = (low + high) >>> 1;
+			if(getKeyframeFrame(middle) <= frame)
+			{
+				found = middle;
+				low = middle + 1;
+			}
+			else
+				high = middle - 1;
+		}
+		return found;
+	}
+	/**
+	 * Gets a keyframe
+	 * @param index -- keyframe, from 0
+	 * @return -- read only buffer positioned at the keyframe
+	 */
+	public ByteBuffer getKeyframe(int index){
+		return data.duplicate().position(data.getInt(indexAt + index * indexEntryBytes + 8));
+	}
+	/**
+	 * Encodes a replay
+	 * @param seed -- game seed
+	 * @param frameNanos -- game time of one frame
+	 * @param interval -- frames between two keyframes
+	 * @param events -- encoded inputs
+	 * @param eventBytes -- length of the encoded inputs
+	 * @param eventCount -- number of inputs
+	 * @param keyframes -- encoded keyframes
+	 * @param keyframeBytes -- length of the encoded keyframes
+	 * @param keyframeFrames -- frame of every keyframe
+	 * @param keyframeOffsets -- start of every keyframe in the encoded keyframes
+	 * @param keyframeCount -- number of keyframes
+	 * @param endFrame -- frames from the start to the end of the recording
+	 * @param ended -- if the game was over, otherwise the recording was stopped early
+	 * @param score -- score at the end
+	 * @param lines -- lines at the end
+	 * @param pieces -- pieces locked at the end
+	 * @param hash -- board hash at the end
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 * @return -- replay on the heap
+	 */
+	static Replay encode(long seed, long frameNanos, int interval, byte[] events, int eventBytes, int eventCount,
+			byte[] keyframes, int keyframeBytes, long[] keyframeFrames, int[] keyframeOffsets, int keyframeCount,
+			long endFrame, boolean ended, int score, int lines, long pieces, long hash, int columns, int rows){
+		int keyframesAt = headerBytes + eventBytes;
+		int indexAt = keyframesAt + keyframeBytes;
+		ByteBuffer data = ByteBuffer.allocate(indexAt + keyframeCount * indexEntryBytes + footerBytes);
+
+		data.putInt(magic).putLong(seed).putLong(frameNanos).putInt(interval).putInt(eventCount).putInt(eventBytes)
+				.putLong(endFrame).put((byte)(ended ? 1 : 0)).putInt(score).putInt(lines).putLong(pieces).putLong(hash)
+				.putInt(columns).putInt(rows);
+		data.put(events, 0, eventBytes);
+		data.put(keyframes, 0, keyframeBytes);
+		for(int i = 0; i < keyframeCount; i++)
+		{
+			data.putLong(keyframeFrames[i]).putInt(keyframesAt + keyframeOffsets[i]);
+		}
+		data.putInt(indexAt).putInt(keyframeCount).putInt(magic);
+		try
+		{
+			return new Replay(data.flip());
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException(e);	//written right above
+		}
+	}
+	/**
+	 * Writes an unsigned varint, seven bits per byte, low bits first
+	 * @param out -- stream
+	 * @param value -- value, not negative
+	 * @throws IOException -- if the stream fails
+	 */
+	static void writeVarint(OutputStream out, long value) throws IOException {
+		while((value & ~0x7FL) != 0)
+		{
+			out.write((int)(value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int)value);
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Feeds a replay back into an engine. The engine has to run on a virtual clock
+ * that moves the frame time of the replay before every frame, the same way the
+ * game loop drives it, then the same inputs in the same frames play the same game.
+ * A seek restores the last keyframe before the wanted frame and plays the frames
+ * from there at full speed, so no seek plays more than one keyframe interval.
+ */
+package tetris;
+
+import java.nio.ByteBuffer;
+
+public class ReplayPlayer {
+
+	private static final Input[] inputs = Input.values();
+
+	private Replay replay;
+	private ByteBuffer events;
+	private int position, read;		//read = inputs read so far
+	private long startFrame, nextFrame;
+	private Input nextInput;
+
+	/**
+	 * Creates a player
+	 * @param replay -- replay to play
+	 */
+	public ReplayPlayer(Replay replay){
+		this.replay = replay;
+		this.events = replay.getEvents();
+	}
+	/**
+	 * Starts the game on an engine made with the seed of the replay
+	 * @param engine -- engine that has not started a game yet
+	 */
+	public void start(GameEngine engine){
+		engine.input(Input.START);
+		this.startFrame = engine.getFrameCount();
+		this.position = 0;
+		this.read = 0;
+		this.nextFrame = 0;
+		readNext();
+	}
+	/**
+	 * Reads the next input, nextInput is null once all of them were read
+	 */
+	private void readNext(){
+		if(read == replay.getEventCount())
+		{
+			this.nextInput = null;
+			return;
+		}
+		read++;
+
+		long value = 0;
+		int shift = 0, b;
+		do
+		{
+			b = events.get(position++);
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		}
+		while((b & 0x80) != 0);
+
+		this.nextFrame += value >>> Replay.inputBits;
+		this.nextInput = inputs[(int)(value & ((1 << Replay.inputBits) - 1))];
+	}
+	/**
+	 * Applies the inputs of the current frame, called before every engine frame
+	 * @param engine -- engine being played
+	 */
+	public void feed(GameEngine engine){
+		long frame = getFrame(engine);
+		while(nextInput != null && nextFrame == frame)
+		{
+			engine.input(nextInput);
+			readNext();
+		}
+	}
+	/**
+	 * Gets the frame being played
+	 * @param engine -- engine being played
+	 * @return -- frames since the start
+	 */
+	public long getFrame(GameEngine engine){
+		return engine.getFrameCount() - startFrame;
+	}
+	/**
+	 * Gets the frame the recording stops at
+	 * @return -- frames since the start
+	 */
+	public long getEndFrame(){
+		return replay.getEndFrame();
+	}
+	/**
+	 * Checks if the recording is over
+	 * @param engine -- engine being played
+	 * @return -- if the game ended or the last recorded frame was reached
+	 */
+	public boolean isDone(GameEngine engine){
+		return engine.hasGameEnded() || getFrame(engine) >= replay.getEndFrame();
+	}
+	/**
+	 * Moves the game to a frame, before the inputs of that frame. The last
+	 * keyframe before it is restored unless the game is already between that
+	 * keyframe and the frame, the rest is played without drawing.
+	 * @param engine -- engine being played, started by start
+	 * @param clock -- clock of the engine
+	 * @param frame -- frames since the start, clamped to the recording
+	 */
+	public void seek(GameEngine engine, VirtualClock clock, long frame){
+		long target = Math.max(0, Math.min(frame, replay.getEndFrame()));
+		long current = getFrame(engine);
+		int key = replay.findKeyframe(target);
+		if(key >= 0 && (target < current || replay.getKeyframeFrame(key) > current))
+			restore(engine, key);
+
+		while(getFrame(engine) < target)
+		{
+			feed(engine);
+			if(isDone(engine))
+				break;
+			clock.advance(replay.getFrameNanos());
+			engine.frame();
+		}
+	}
+	/**
+	 * Puts the engine and the input stream at a keyframe
+	 */
+	private void restore(GameEngine engine, int key){
+		ByteBuffer keyframe = replay.getKeyframe(key);
+		this.position = keyframe.getInt();
+		this.read = keyframe.getInt();
+		this.nextFrame = keyframe.getLong();
+		engine.readKeyframe(keyframe, replay.getSeed());
+		this.startFrame = engine.getFrameCount() - replay.getKeyframeFrame(key);
+		readNext();
+	}
+	/**
+	 * Plays a replay as fast as possible without drawing it and checks that it
+	 * ends the way it was recorded
+	 * @param replay -- replay
+	 * @return -- null if it matches, otherwise what differs
+	 */
+	public static String verify(Replay replay){
+		return verify(replay, -1);
+	}
+	/**
+	 * Plays a replay as fast as possible without drawing it and checks that it
+	 * ends the way it was recorded. A seek first checks the keyframes too.
+	 * @param replay -- replay
+	 * @param from -- frame to seek to before playing the rest, -1 to play from the start
+	 * @return -- null if it matches, otherwise what differs
+	 */
+	public static String verify(Replay replay, long from){
+		VirtualClock clock = new VirtualClock();
+		GameEngine engine = new GameEngine(replay.getSeed(), clock, replay.getColumns(), replay.getRows());
+		ReplayPlayer player = new ReplayPlayer(replay);
+		player.start(engine);
+		if(from >= 0)
+			player.seek(engine, clock, from);
+
+		while(true)
+		{
+			player.feed(engine);
+			if(player.isDone(engine))
+				break;
+			clock.advance(replay.getFrameNanos());
+			engine.frame();
+		}
+
+		long frames = player.getFrame(engine);
+		if(frames != replay.getEndFrame() || engine.hasGameEnded() != replay.hasEnded())
+			return "ended at frame " + frames + (engine.hasGameEnded() ? "" : " unfinished") + ", recorded " + replay.getEndFrame()
+					+ (replay.hasEnded() ? "" : " unfinished");
+		if(engine.getScore() != replay.getScore() || engine.getLines() != replay.getLines() || engine.getPieceCount() != replay.getPieces())
+			return "score " + engine.getScore() + "/" + engine.getLines() + "/" + engine.getPieceCount() + ", recorded "
+					+ replay.getScore() + "/" + replay.getLines() + "/" + replay.getPieces();
+		if(engine.getBoard().getHash() != replay.getHash())
+			return "board differs";
+		return null;
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Records the games of an engine. The engine reports the start of a game, every
+ * input, every frame and the end of the game, the finished replay is handed to
+ * a consumer. The inputs are encoded while they come in, and every few thousand
+ * frames the whole game state is written as a keyframe, into buffers that are
+ * kept from game to game.
+ */
+package tetris;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public class ReplayRecorder {
+
+	private static final int defaultInterval = 3000;	//a keyframe per minute of game time at 50 frames per second
+
+	private long frameNanos;
+	private int interval;
+	private Consumer<Replay> finished;
+
+	private ByteArrayOutputStream events = new ByteArrayOutputStream(4096);
+	private ByteArrayOutputStream keyframes = new ByteArrayOutputStream(4096);
+	private DataOutputStream keyframeOut = new DataOutputStream(keyframes);
+	private long[] keyframeFrames = new long[16];
+	private int[] keyframeOffsets = new int[16];
+	private int keyframeCount;
+	private boolean recording;
+	private long seed, startFrame, lastFrame;
+	private int eventCount;
+
+	/**
+	 * Creates a recorder with a keyframe every 3000 frames
+	 * @param frameNanos -- game time of one engine frame
+	 * @param finished -- gets every finished replay
+	 */
+	public ReplayRecorder(long frameNanos, Consumer<Replay> finished){
+		this(frameNanos, defaultInterval, finished);
+	}
+	/**
+	 * Creates a recorder
+	 * @param frameNanos -- game time of one engine frame
+	 * @param interval -- frames between two keyframes
+	 * @param finished -- gets every finished replay
+	 */
+	public ReplayRecorder(long frameNanos, int interval, Consumer<Replay> finished){
+		this.frameNanos = frameNanos;
+		this.interval = interval;
+		this.finished = finished;
+	}
+	/**
+	 * Starts recording a game, called by the engine when a game starts
+	 * @param engine -- engine
+	 */
+	public void begin(GameEngine engine){
+		this.recording = true;
+		this.seed = engine.getGameSeed();
+		this.startFrame = engine.getFrameCount();
+		this.lastFrame = 0;
+		this.eventCount = 0;
+		this.keyframeCount = 0;
+		events.reset();
+		keyframes.reset();
+		keyframe(engine, 0);
+	}
+	/**
+	 * Records an input, called by the engine before it applies the input
+	 * @param engine -- engine
+	 * @param input -- the action
+	 */
+	public void record(GameEngine engine, Input input){
+		if(!recording)
+			return;
+
+		long frame = engine.getFrameCount() - startFrame;
+		try
+		{
+			Replay.writeVarint(events, ((frame - lastFrame) << Replay.inputBits) | input.ordinal());
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException(e);	//a byte array does not fail
+		}
+		this.lastFrame = frame;
+		eventCount++;
+	}
+	/**
+	 * Writes a keyframe when one is due, called by the engine at the end of every frame
+	 * @param engine -- engine
+	 */
+	public void frame(GameEngine engine){
+		long frame = engine.getFrameCount() - startFrame;
+		if(recording && frame % interval == 0)
+			keyframe(engine, frame);
+	}
+	/**
+	 * Writes the state before the inputs of a frame, with where the inputs of that frame start
+	 */
+	private void keyframe(GameEngine engine, long frame){
+		if(keyframeCount == keyframeFrames.length)
+		{
+			keyframeFrames = Arrays.copyOf(keyframeFrames, keyframeCount * 2);
+			keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+		}
+		keyframeFrames[keyframeCount] = frame;
+		keyframeOffsets[keyframeCount] = keyframes.size();
+		keyframeCount++;
+		try
+		{
+			keyframeOut.writeInt(events.size());
+			keyframeOut.writeInt(eventCount);
+			keyframeOut.writeLong(lastFrame);
+			engine.writeKeyframe(keyframeOut);
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException(e);	//a byte array does not fail
+		}
+	}
+	/**
+	 * Ends the game, called by the engine when the game is over
+	 * @param engine -- engine
+	 */
+	public void end(GameEngine engine){
+		finish(engine, true);
+	}
+	/**
+	 * Ends a game that is still running, for example when the window closes
+	 * @param engine -- engine
+	 */
+	public void stop(GameEngine engine){
+		finish(engine, false);
+	}
+	private void finish(GameEngine engine, boolean ended){
+		if(!recording)
+			return;
+
+		this.recording = false;
+		finished.accept(Replay.encode(seed, frameNanos, interval, events.toByteArray(), events.size(), eventCount,
+				keyframes.toByteArray(), keyframes.size(), keyframeFrames, keyframeOffsets, keyframeCount,
+				engine.getFrameCount() - startFrame, ended, engine.getScore(), engine.getLines(), engine.getPieceCount(),
+				engine.getBoard().getHash(), engine.getBoard().getWidth(), engine.getBoard().getActiveRows()));
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ * Checks recorded games without a window. Every replay is played as fast as
+ * the engine runs on a virtual clock and has to end with the recorded score,
+ * lines, pieces and board, with "seek" it first jumps to the middle of the game
+ * to check the keyframes as well. The files are memory mapped and checked in
+ * parallel. It can also record bot games the same way the window plays them,
+ * to have replays to check.
+ */
+package tetris;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class ReplayVerifier {
+
+	static final String suffix = ".replay";
+
+	/**
+	 * Maps a replay file
+	 * @param file -- file
+	 * @return -- replay
+	 * @throws IOException -- if the file cannot be read or holds no replay
+	 */
+	public static Replay read(Path file) throws IOException {
+		return Replay.map(file);
+	}
+	/**
+	 * Writes a replay into a directory, named after its seed
+	 * @param directory -- directory
+	 * @param replay -- replay
+	 * @return -- file written
+	 * @throws IOException -- if the file cannot be written
+	 */
+	public static Path write(Path directory, Replay replay) throws IOException {
+		Files.createDirectories(directory);
+		Path file = directory.resolve(String.format("%016x%s", replay.getSeed(), suffix));
+		try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(file)))
+		{
+			replay.write(out);
+		}
+		return file;
+	}
+	/**
+	 * Plays one bot game frame by frame, the way the window plays it, and records it
+	 * @param seed -- game seed
+	 * @param maxPieces -- pieces after which the recording is stopped
+	 * @param frameNanos -- game time of one frame
+	 * @return -- replay
+	 */
+	public static Replay record(long seed, long maxPieces, long frameNanos){
+		return record(seed, maxPieces, frameNanos, BoardModel.numOfColums, BoardModel.activeNumRows);
+	}
+	/**
+	 * Plays one bot game frame by frame on a board of any size and records it
+	 * @param seed -- game seed
+	 * @param maxPieces -- pieces after which the recording is stopped
+	 * @param frameNanos -- game time of one frame
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 * @return -- replay
+	 */
+	public static Replay record(long seed, long maxPieces, long frameNanos, int columns, int rows){
+		Replay[] replay = new Replay[1];
+		VirtualClock clock = new VirtualClock();
+		GameEngine engine = new GameEngine(seed, clock, columns, rows);
+		ReplayRecorder recorder = new ReplayRecorder(frameNanos, finished -> replay[0] = finished);
+		AutoPlayer bot = new AutoPlayer();
+		engine.setRecorder(recorder);
+		engine.input(Input.START);
+
+		while(replay[0] == null)
+		{
+			if(engine.getPieceCount() >= maxPieces)
+				recorder.stop(engine);
+			else
+			{
+				bot.act(engine);
+				clock.advance(frameNanos);
+				engine.frame();
+			}
+		}
+		return replay[0];
+	}
+	/**
+	 * Collects the replay files of the arguments, directories are searched for *.replay files
+	 */
+	private static List<Path> files(List<String> args) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for(String arg : args)
+		{
+			Path path = Paths.get(arg);
+			if(Files.isDirectory(path))
+			{
+				try(Stream<Path> found = Files.walk(path))
+				{
+					found.filter(file -> file.toString().endsWith(suffix)).sorted().forEach(files::add);
+				}
+			}
+			else
+				files.add(path);
+		}
+		return files;
+	}
+	/**
+	 * Checks or records replays from the command line
+	 * args: replay files or directories to check, "seek" first to start each one in the middle,
+	 * or "record" directory, games, max pieces per game, root seed, board columns, board rows
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length > 0 && args[0].equals("record"))
+		{
+			Path directory = Paths.get((args.length > 1) ? args[1] : "replays");
+			int count = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+			long maxPieces = (args.length > 3) ? Long.parseLong(args[3]) : 500L;
+			SplittableRandom random = new SplittableRandom((args.length > 4) ? Long.parseLong(args[4]) : 42L);
+			int columns = (args.length > 5) ? Integer.parseInt(args[5]) : BoardModel.numOfColums;
+			int rows = (args.length > 6) ? Integer.parseInt(args[6]) : BoardModel.activeNumRows;
+			long frameNanos = 20000000L;
+			long bytes = 0;
+
+			for(int i = 0; i < count; i++)
+			{
+				bytes += Files.size(write(directory, record(random.nextLong(), maxPieces, frameNanos, columns, rows)));
+			}
+			System.out.printf("%d replays in %s, %.1f KB per game%n", count, directory, bytes / 1024.0 / Math.max(1, count));
+			return;
+		}
+
+		boolean seek = args.length > 0 && args[0].equals("seek");
+		List<Path> files = files(List.of(args).subList(seek ? 1 : 0, args.length));
+		LongAdder ok = new LongAdder();
+		AtomicLong frames = new AtomicLong();
+		long start = System.nanoTime();
+
+		files.parallelStream().forEach(file -> {
+			try
+			{
+				Replay replay = read(file);
+				String mismatch = ReplayPlayer.verify(replay, seek ? replay.getEndFrame() / 2 : -1);
+				if(mismatch == null)
+					ok.increment();
+				else
+					System.out.println(file + ": " + mismatch);
+				frames.addAndGet(replay.getEndFrame());
+			}
+			catch(IOException e)
+			{
+				System.out.println(file + ": " + e);
+			}
+		});
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d of %d replays match, %d frames in %.2f s (%.0f frames/s)%n",
+				ok.sum(), files.size(), frames.get(), seconds, frames.get() / seconds);
+		if(ok.sum() != files.size())
+			System.exit(1);
+	}
+}
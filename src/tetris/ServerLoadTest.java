@@ -0,0 +1,233 @@
+/**
+ * Loopback load test of the game server. A server runs in this process and
+ * client processes open the sessions against it over 127.0.0.1, each client
+ * process holding a few thousand connections on one selector, since one
+ * process can only have so many sockets open. Every client presses a random
+ * key a few times a second, hard drops and starts included, so the games lock
+ * pieces, clear lines, end and start again, and it reads every state the
+ * server sends. Once all the sessions are in, the tick report of the server
+ * (how late the ticks start, how long a batch runs, how long a key waits for
+ * its tick) is printed every few seconds, with the CPU time the server process
+ * used per session tick, which tells what a node can hold when the clients
+ * do not share its cores.
+ */
+package tetris;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.sun.management.OperatingSystemMXBean;
+
+public class ServerLoadTest {
+
+	private static final int clientsPerProcess = 8000;	//two sockets per session would pass the open file limit
+	private static final int maxConnecting = 256;		//connections opened at once
+	private static final double keysPerSecond = 5.0;	//per client
+	private static final long reportNanos = 5000000000L;
+	private static final long connectNanos = 120000000000L;	//time for all the sessions to come in
+	private static final int released = 0x80;
+
+	private static final Input[] keys = {Input.LEFT, Input.RIGHT, Input.ROTATE_LEFT, Input.ROTATE_RIGHT,
+			Input.SOFT_DROP, Input.SOFT_DROP_RELEASE, Input.HARD_DROP, Input.START};
+
+	private ServerLoadTest(){
+	}
+	/**
+	 * Runs a server in this process and the client processes against it
+	 * @param sessions -- games to run at once
+	 * @param seconds -- time to measure once all the sessions are in
+	 * @param workers -- tick threads of the server
+	 */
+	private static void serve(int sessions, int seconds, int workers) throws IOException, InterruptedException {
+		GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), workers,
+				BoardModel.numOfColums, BoardModel.activeNumRows);
+		server.start();
+		TickScheduler scheduler = server.getScheduler();
+		System.out.println("server on port " + server.getPort() + " with " + workers + " tick threads, " + sessions + " sessions");
+
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Process> clients = new ArrayList<>();
+		for(int from = 0; from < sessions; from += clientsPerProcess)
+		{
+			int count = Math.min(clientsPerProcess, sessions - from);
+			clients.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), ServerLoadTest.class.getName(),
+					"client", Integer.toString(server.getPort()), Integer.toString(count), Long.toString(from)).inheritIO().start());
+		}
+
+		long start = System.nanoTime();
+		while(scheduler.getSessionCount() < sessions && System.nanoTime() - start < connectNanos)
+		{
+			Thread.sleep(100);
+		}
+		System.out.printf("%d sessions in after %.1f s, %d ticks dropped so far%n", scheduler.getSessionCount(),
+				(System.nanoTime() - start) / 1e9, scheduler.getDroppedTicks());
+
+		scheduler.resetStats();
+		OperatingSystemMXBean system = (OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean();
+		long dropped = scheduler.getDroppedTicks();
+		long cpu = system.getProcessCpuTime(), wall = System.nanoTime(), sessionTicks = scheduler.getSessionTicks();
+		long end = wall + seconds * 1000000000L;
+		while(System.nanoTime() < end)
+		{
+			Thread.sleep(Math.max(1, Math.min(reportNanos, end - System.nanoTime()) / 1000000L));
+			long nowCpu = system.getProcessCpuTime(), now = System.nanoTime(), nowTicks = scheduler.getSessionTicks();
+			System.out.printf("%d sessions, %d ticks dropped while measuring, server CPU %.0f%% of a core, %.2f us per session tick%n%s",
+					scheduler.getSessionCount(), scheduler.getDroppedTicks() - dropped, 100.0 * (nowCpu - cpu) / (now - wall),
+					(nowCpu - cpu) / 1e3 / Math.max(1, nowTicks - sessionTicks), scheduler.getReport());
+			cpu = nowCpu;
+			wall = now;
+			sessionTicks = nowTicks;
+		}
+
+		server.stop();
+		for(Process client : clients)
+		{
+			client.waitFor();
+		}
+	}
+	/**
+	 * Opens connections against a server and presses keys until the server closes them
+	 * @param port -- port of the server on the loopback address
+	 * @param count -- connections
+	 * @param seed -- seed of the keys
+	 */
+	private static void connect(int port, int count, long seed) throws IOException {
+		InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+		SplittableRandom random = new SplittableRandom(seed);
+		Selector selector = Selector.open();
+		SocketChannel[] channels = new SocketChannel[count];
+		byte[] holding = new byte[count];		//ordinal + 1 of the left or right key that is down, it goes up with the next key
+		ByteBuffer in = ByteBuffer.allocateDirect(65536);
+		ByteBuffer key = ByteBuffer.allocateDirect(1);
+
+		int opened = 0, connecting = 0, open = 0;
+		long bytes = 0, sent = 0;
+		long tickNanos = (long)(1e9 / GameServer.tickRate);
+		int rounds = (int)Math.max(1, Math.round(GameServer.tickRate / keysPerSecond));	//ticks between two keys of a client
+		long nextRound = System.nanoTime();
+		int round = 0;
+
+		while(opened < count || connecting > 0 || open > 0)
+		{
+			while(opened < count && connecting < maxConnecting)
+			{
+				SocketChannel channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.connect(address);
+				channel.register(selector, SelectionKey.OP_CONNECT, opened);
+				channels[opened++] = channel;
+				connecting++;
+			}
+
+			long now = System.nanoTime();
+			if(now - nextRound >= 0)	//the clients of this round press a key
+			{
+				for(int i = round % rounds; i < opened; i += rounds)
+				{
+					SocketChannel channel = channels[i];
+					if(channel == null || !channel.isConnected())
+						continue;
+					int code;
+					if(holding[i] != 0)		//let go of the key held since the last one
+					{
+						code = (holding[i] - 1) | released;
+						holding[i] = 0;
+					}
+					else
+					{
+						Input input = keys[random.nextInt(keys.length)];
+						code = input.ordinal();
+						if(input == Input.LEFT || input == Input.RIGHT)
+							holding[i] = (byte)(code + 1);
+					}
+					key.clear();
+					key.put((byte)code).flip();
+					try
+					{
+						channel.write(key);
+						sent++;
+					}
+					catch(IOException e)
+					{
+						//the server closed it, the read sees the end
+					}
+				}
+				round++;
+				nextRound += tickNanos;
+				if(nextRound - now < 0)
+					nextRound = now + tickNanos;
+			}
+
+			selector.select(Math.max(1, (nextRound - System.nanoTime()) / 1000000L));
+			Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+			while(selected.hasNext())
+			{
+				SelectionKey selection = selected.next();
+				selected.remove();
+				int index = (Integer)selection.attachment();
+				SocketChannel channel = (SocketChannel)selection.channel();
+				try
+				{
+					if(selection.isConnectable())
+					{
+						channel.finishConnect();
+						selection.interestOps(SelectionKey.OP_READ);
+						connecting--;
+						open++;
+						continue;
+					}
+					in.clear();
+					int read = channel.read(in);
+					if(read >= 0)
+					{
+						bytes += read;
+						continue;
+					}
+				}
+				catch(IOException e)
+				{
+					if(selection.isConnectable())
+						connecting--;
+				}
+				if(channel.isConnected())
+					open--;
+				selection.cancel();
+				channel.close();
+				channels[index] = null;
+			}
+		}
+		selector.close();
+		System.out.printf("client %d: %d connections, %d keys sent, %.1f MB of states read%n", seed, count, sent, bytes / 1e6);
+	}
+	/**
+	 * Runs the load test
+	 * args: sessions(default 10000), seconds to measure(default 30), tick threads of the server
+	 * or: "client", port, connections, seed to run one client process
+	 * @throws IOException -- if the server or a client cannot open its sockets
+	 * @throws InterruptedException -- if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if(args.length > 0 && args[0].equals("client"))
+		{
+			connect(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+			return;
+		}
+		int sessions = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 30;
+		int workers = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		serve(sessions, seconds, workers);
+	}
+}
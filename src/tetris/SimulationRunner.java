@@ -0,0 +1,212 @@
+/**
+ * Plays many independent headless games across all cores and sums up the results.
+ * Every game gets its own seed split off of one root SplittableRandom, so a run
+ * with the same root seed plays the same games no matter how many threads it uses.
+ */
+package tetris;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+public class SimulationRunner {
+
+	private static final int gamesPerTask = 64;	//smallest batch a worker plays on its own
+
+	private LongFunction<Strategy> strategies;
+	private long maxPieces;
+	private int columns = BoardModel.numOfColums, rows = BoardModel.activeNumRows;
+
+	private LongAdder games = new LongAdder();
+	private LongAdder lines = new LongAdder();
+	private LongAdder score = new LongAdder();
+	private LongAdder pieces = new LongAdder();
+	private LongAdder levels = new LongAdder();
+	private LongAccumulator maxLevel = new LongAccumulator(Math::max, 0L);
+	private LongAccumulator maxScore = new LongAccumulator(Math::max, 0L);
+
+	/**
+	 * Creates a runner
+	 * @param strategies -- makes the strategy of one game from the game seed
+	 * @param maxPieces -- pieces after which a game is stopped, so good strategies end
+	 */
+	public SimulationRunner(LongFunction<Strategy> strategies, long maxPieces){
+		this.strategies = strategies;
+		this.maxPieces = maxPieces;
+	}
+	/**
+	 * Sets the board size of the games, the standard board if not set
+	 * @param columns -- board columns
+	 * @param rows -- board rows in play
+	 */
+	public void setBoardSize(int columns, int rows){
+		this.columns = columns;
+		this.rows = rows;
+	}
+	/**
+	 * Splits the game range until the batches are small enough to play
+	 */
+	private class Batch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private long from, to;
+		private SplittableRandom random;
+
+		private Batch(long from, long to, SplittableRandom random){
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+		@Override
+		protected void compute(){
+			if(to - from <= gamesPerTask)
+			{
+				for(long i = from; i < to; i++)
+				{
+					play(random.nextLong());
+				}
+				return;
+			}
+			long middle = (from + to) >>> 1;
+			invokeAll(new Batch(from, middle, random.split()), new Batch(middle, to, random));
+		}
+	}
+	/**
+	 * Plays one game until it is over or hits the piece cap
+	 * @param seed -- seed of the game
+	 */
+	private void play(long seed){
+		GameEngine engine = new GameEngine(seed, Clock.wall, columns, rows);
+		Strategy strategy = strategies.apply(seed);
+		engine.step(Input.START);
+
+		while(!engine.hasGameEnded() && engine.getPieceCount() < maxPieces)
+		{
+			engine.step(strategy.next(engine));
+		}
+
+		games.increment();
+		lines.add(engine.getLines());
+		score.add(engine.getScore());
+		pieces.add(engine.getPieceCount());
+		levels.add(engine.getLevel());
+		maxLevel.accumulate(engine.getLevel());
+		maxScore.accumulate(engine.getScore());
+	}
+	/**
+	 * Plays a number of games on the pool and waits for all of them
+	 * @param pool -- pool that plays the games
+	 * @param count -- number of games
+	 * @param seed -- root seed
+	 */
+	public void run(ForkJoinPool pool, long count, long seed){
+		pool.invoke(new Batch(0, count, new SplittableRandom(seed)));
+	}
+	/**
+	 * Gets the number of games played
+	 * @return -- games played
+	 */
+	public long getGames(){
+		return games.sum();
+	}
+	/**
+	 * Gets the lines cleared over all games
+	 * @return -- lines cleared
+	 */
+	public long getLines(){
+		return lines.sum();
+	}
+	/**
+	 * Gets the summed score over all games
+	 * @return -- summed score
+	 */
+	public long getScore(){
+		return score.sum();
+	}
+	/**
+	 * Gets the pieces locked over all games
+	 * @return -- pieces locked
+	 */
+	public long getPieces(){
+		return pieces.sum();
+	}
+	/**
+	 * Gets the highest level reached of any game
+	 * @return -- highest level reached
+	 */
+	public long getMaxLevel(){
+		return maxLevel.get();
+	}
+	/**
+	 * Gets the best score of any game
+	 * @return -- best score
+	 */
+	public long getMaxScore(){
+		return maxScore.get();
+	}
+	/**
+	 * Gets the mean level reached
+	 * @return -- mean level
+	 */
+	public double getMeanLevel(){
+		long count = games.sum();
+		return (count == 0) ? 0 : (double)levels.sum() / count;
+	}
+	/**
+	 * Runs a simulation from the command line
+	 * args: games, max pieces per game, threads, root seed, strategy(random or bot),
+	 * transposition table MB per thread, board columns, board rows
+	 */
+	public static void main(String[] args){
+		long count = (args.length > 0) ? Long.parseLong(args[0]) : 100000L;
+		long maxPieces = (args.length > 1) ? Long.parseLong(args[1]) : 10000L;
+		int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long seed = (args.length > 3) ? Long.parseLong(args[3]) : 42L;
+		boolean bot = (args.length > 4) && args[4].equals("bot");
+		long tableBytes = ((args.length > 5) ? Long.parseLong(args[5]) : 1L) << 20;
+		int columns = (args.length > 6) ? Integer.parseInt(args[6]) : BoardModel.numOfColums;
+		int rows = (args.length > 7) ? Integer.parseInt(args[7]) : BoardModel.activeNumRows;
+
+		ConcurrentLinkedQueue<AutoPlayer> players = new ConcurrentLinkedQueue<>();
+		ThreadLocal<AutoPlayer> threadPlayer = ThreadLocal.withInitial(() -> {	//one table per thread, kept across games
+			AutoPlayer player = new AutoPlayer(new Evaluator(), true, new TranspositionTable(tableBytes));
+			players.add(player);
+			return player;
+		});
+
+		SimulationRunner runner = new SimulationRunner(	//own stream for the moves, apart from the pieces
+				game -> bot ? threadPlayer.get() : new RandomStrategy(game * 0x9E3779B97F4A7C15L), maxPieces);
+		runner.setBoardSize(columns, rows);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		long start = System.nanoTime();
+		runner.run(pool, count, seed);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		pool.shutdown();
+
+		System.out.printf("%d games on %d threads in %.2f s%n", runner.getGames(), threads, seconds);
+		System.out.printf("%.0f games/s, %.0f pieces/s%n", runner.getGames() / seconds, runner.getPieces() / seconds);
+		System.out.printf("lines %d, score %d (max %d), pieces %d, level mean %.2f (max %d)%n",
+				runner.getLines(), runner.getScore(), runner.getMaxScore(), runner.getPieces(),
+				runner.getMeanLevel(), runner.getMaxLevel());
+
+		if(bot)
+		{
+			long probes = 0, hits = 0, evictions = 0, filled = 0, capacity = 0;
+			for(AutoPlayer player : players)
+			{
+				TranspositionTable table = player.getTable();
+				probes += table.getProbes();
+				hits += table.getHits();
+				evictions += table.getEvictions();
+				filled += table.getFilled();
+				capacity += table.getCapacity();
+			}
+			System.out.printf("table: %d probes, hit rate %.2f%%, %d evictions, %d of %d slots filled%n",
+					probes, (probes == 0) ? 0.0 : 100.0 * hits / probes, evictions, filled, capacity);
+		}
+	}
+}
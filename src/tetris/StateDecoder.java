@@ -0,0 +1,188 @@
+/**
+ * Copy of a remote game kept up to date from the messages of a StateEncoder,
+ * the way a client or a spectator follows a game. Each message is applied in
+ * place: the fields it carries replace the old ones and its rows are copied
+ * over the old rows, so nothing is allocated after the first snapshot.
+ */
+package tetris;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class StateDecoder {
+
+	private static final Piece[] pieces = Piece.values();
+
+	private int columns, height;
+	private byte[] colors = new byte[0];		//piece ordinal + 1 per tile, 0 = empty
+	private int frame, score, lines, level, flags;
+	private int piece, next, column, row, rotation;		//piece and next: ordinal + 1, 0 = none
+	private long messages;
+
+	/**
+	 * Applies the next message if all of it is in the buffer
+	 * @param in -- received bytes, from the position to the limit
+	 * @return -- false if the message is not complete yet, the buffer is left as it was
+	 * @throws IllegalStateException -- if a delta comes before the first snapshot
+	 */
+	public boolean decode(ByteBuffer in){
+		if(in.remaining() < 4 || in.remaining() - 4 < in.getInt(in.position()))
+			return false;
+		in.getInt();
+		int parts = in.get() & 0xFF;
+		if((parts & StateEncoder.snapshot) == 0 && messages == 0)
+			throw new IllegalStateException("delta before the first snapshot");
+
+		this.frame = in.getInt();
+		if((parts & StateEncoder.snapshot) != 0)
+		{
+			this.columns = in.getShort();
+			this.height = in.getShort();
+			if(colors.length != columns * height)
+				this.colors = new byte[columns * height];
+			else
+				Arrays.fill(colors, (byte)0);
+		}
+		if((parts & StateEncoder.score) != 0)
+			this.score = in.getInt();
+		if((parts & StateEncoder.lines) != 0)
+			this.lines = in.getInt();
+		if((parts & StateEncoder.level) != 0)
+			this.level = in.getShort();
+		if((parts & StateEncoder.flags) != 0)
+			this.flags = in.get();
+		if((parts & StateEncoder.piece) != 0)
+		{
+			this.piece = in.get();
+			this.column = in.getShort();
+			this.row = in.getShort();
+			this.rotation = in.get();
+		}
+		if((parts & StateEncoder.next) != 0)
+			this.next = in.get();
+		if((parts & StateEncoder.rows) != 0)
+		{
+			for(int count = in.getShort(); count > 0; count--)
+			{
+				in.get(colors, in.getShort() * columns, columns);
+			}
+		}
+		messages++;
+		return true;
+	}
+	/**
+	 * Gets the number of messages applied
+	 * @return -- messages
+	 */
+	public long getMessages(){
+		return messages;
+	}
+	/**
+	 * Gets the number of columns
+	 * @return -- columns
+	 */
+	public int getWidth(){
+		return columns;
+	}
+	/**
+	 * Gets the number of rows, passive ones included
+	 * @return -- rows
+	 */
+	public int getHeight(){
+		return height;
+	}
+	/**
+	 * Gets the piece on a tile
+	 * @param col -- column
+	 * @param row -- row
+	 * @return -- piece, null if the tile is empty
+	 */
+	public Piece getTile(int col, int row){
+		int color = colors[row * columns + col];
+		return (color == 0) ? null : pieces[color - 1];
+	}
+	/**
+	 * Gets the engine frame of the last message
+	 * @return -- frame
+	 */
+	public int getFrame(){
+		return frame;
+	}
+	/**
+	 * Gets the score
+	 * @return -- score
+	 */
+	public int getScore(){
+		return score;
+	}
+	/**
+	 * Gets the lines cleared
+	 * @return -- lines
+	 */
+	public int getLines(){
+		return lines;
+	}
+	/**
+	 * Gets the level
+	 * @return -- level
+	 */
+	public int getLevel(){
+		return level;
+	}
+	/**
+	 * Gets the falling piece
+	 * @return -- piece, null if there is none
+	 */
+	public Piece getPiece(){
+		return (piece == 0) ? null : pieces[piece - 1];
+	}
+	/**
+	 * Gets the next piece
+	 * @return -- piece, null if there is none
+	 */
+	public Piece getNextPiece(){
+		return (next == 0) ? null : pieces[next - 1];
+	}
+	/**
+	 * Gets the column of the falling piece
+	 * @return -- column
+	 */
+	public int getColumn(){
+		return column;
+	}
+	/**
+	 * Gets the row of the falling piece
+	 * @return -- row
+	 */
+	public int getRow(){
+		return row;
+	}
+	/**
+	 * Gets the rotation of the falling piece
+	 * @return -- rotation
+	 */
+	public int getRotation(){
+		return rotation;
+	}
+	/**
+	 * Checks if the game is paused
+	 * @return -- if it is paused
+	 */
+	public boolean isPaused(){
+		return (flags & 1) != 0;
+	}
+	/**
+	 * Checks if the game is over
+	 * @return -- if it ended
+	 */
+	public boolean hasGameEnded(){
+		return (flags & 2) != 0;
+	}
+	/**
+	 * Checks if the game waits for its first start
+	 * @return -- if it is a new game
+	 */
+	public boolean isNewGame(){
+		return (flags & 4) != 0;
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Writes the state of a game for one remote viewer, a player or a spectator.
+ * The first message is a snapshot of everything, every message after it only
+ * carries what changed since the one before: the score, lines, level and
+ * flags when they moved, the piece when it moved or turned, the next piece
+ * when a new one came up, and the board rows whose stamp is newer than the
+ * last message. Rows above the stack that were already empty are left out, so
+ * a snapshot of a fresh board is a few bytes and a line clear sends the stack
+ * but not the empty rows over it. A viewer that falls behind simply gets a
+ * message later, it still holds everything since the last one it got. Only
+ * primitives are kept, a message goes straight into the buffer.
+ *
+ * Message: length int(bytes after it), parts byte, frame int, then the parts
+ * in this order when their bit is set:
+ *   1 snapshot -- board columns short, board rows short(passive ones
+ *     included), the board is empty before the rows of the message go in
+ *   2 score int
+ *   4 lines int
+ *   8 level short
+ *   16 flags byte(1 = paused, 2 = ended, 4 = new game)
+ *   32 piece -- piece byte(ordinal + 1, 0 = none), column short, row short, rotation byte
+ *   64 next piece byte(ordinal + 1, 0 = none)
+ *   128 rows -- count short, then per row: row short, the color of every tile
+ *     (ordinal + 1, 0 = empty)
+ * A snapshot has every part.
+ */
+package tetris;
+
+import java.nio.ByteBuffer;
+
+public class StateEncoder {
+
+	static final int snapshot = 1, score = 2, lines = 4, level = 8, flags = 16, piece = 32, next = 64, rows = 128;
+	static final int headerBytes = 9;		//length, parts and frame
+
+	private boolean synced;		//false until the snapshot went out
+	private long sentVersion, sentChanges;
+	private int sentScore, sentLines, sentLevel, sentFlags, sentPiece, sentNext;
+	private int sentColumn, sentRow, sentRotation;
+	private int sentTop;		//rows above it are empty at the viewer
+
+	/**
+	 * Gets the most bytes one message of a board size takes, a snapshot of a full board
+	 * @param columns -- board columns
+	 * @param height -- board rows, passive ones included
+	 * @return -- bytes
+	 */
+	public static int maxBytes(int columns, int height){
+		return headerBytes + 4 + 4 + 4 + 2 + 1 + 6 + 1 + 2 + height * (2 + columns);
+	}
+	/**
+	 * Checks if the game changed since the last message
+	 * @param engine -- game
+	 * @return -- true if a message is due
+	 */
+	public boolean hasChanges(GameEngine engine){
+		return !synced || engine.getVersion() != sentVersion || engine.getBoard().getChanges() != sentChanges;
+	}
+	/**
+	 * Makes the next message a snapshot, for a viewer that lost track
+	 */
+	public void reset(){
+		this.synced = false;
+	}
+	/**
+	 * Writes one message with what changed since the last one, or a snapshot if it is the first
+	 * @param engine -- game, only read by the thread that runs it
+	 * @param out -- buffer with maxBytes of room
+	 */
+	public void encode(GameEngine engine, ByteBuffer out){
+		BoardModel board = engine.getBoard();
+		Piece current = engine.getPiece(), coming = engine.getNextPiece();
+		int state = (engine.isPaused() ? 1 : 0) | (engine.hasGameEnded() ? 2 : 0) | (engine.isNewGame() ? 4 : 0);
+		int pieceCode = (current == null) ? 0 : current.ordinal() + 1;
+		int nextCode = (coming == null) ? 0 : coming.ordinal() + 1;
+		int top = board.getTop();
+
+		int parts;
+		if(!synced)
+			parts = snapshot | score | lines | level | flags | piece | next | rows;
+		else
+		{
+			parts = 0;
+			if(engine.getScore() != sentScore)
+				parts |= score;
+			if(engine.getLines() != sentLines)
+				parts |= lines;
+			if(engine.getLevel() != sentLevel)
+				parts |= level;
+			if(state != sentFlags)
+				parts |= flags;
+			if(pieceCode != sentPiece || engine.getColumn() != sentColumn || engine.getRow() != sentRow || engine.getRotation() != sentRotation)
+				parts |= piece;
+			if(nextCode != sentNext)
+				parts |= next;
+			if(board.getChanges() != sentChanges)
+				parts |= rows;
+		}
+
+		int start = out.position();
+		out.putInt(0).put((byte)parts).putInt((int)engine.getFrameCount());
+		if((parts & snapshot) != 0)
+			out.putShort((short)board.getWidth()).putShort((short)board.getHeight());
+		if((parts & score) != 0)
+			out.putInt(engine.getScore());
+		if((parts & lines) != 0)
+			out.putInt(engine.getLines());
+		if((parts & level) != 0)
+			out.putShort((short)engine.getLevel());
+		if((parts & flags) != 0)
+			out.put((byte)state);
+		if((parts & piece) != 0)
+			out.put((byte)pieceCode).putShort((short)engine.getColumn()).putShort((short)engine.getRow()).put((byte)engine.getRotation());
+		if((parts & next) != 0)
+			out.put((byte)nextCode);
+		if((parts & rows) != 0)
+		{
+			int countAt = out.position();
+			out.putShort((short)0);
+			int count = 0;
+			for(int row = synced ? Math.min(top, sentTop) : top; row < board.getHeight(); row++)	//empty on both sides above that
+			{
+				if(synced && board.getRowStamp(row) <= sentChanges)
+					continue;
+				out.putShort((short)row);
+				board.putRow(row, out);
+				count++;
+			}
+			out.putShort(countAt, (short)count);
+		}
+		out.putInt(start, out.position() - start - 4);
+
+		this.synced = true;
+		this.sentVersion = engine.getVersion();
+		this.sentChanges = board.getChanges();
+		this.sentScore = engine.getScore();
+		this.sentLines = engine.getLines();
+		this.sentLevel = engine.getLevel();
+		this.sentFlags = state;
+		this.sentPiece = pieceCode;
+		this.sentNext = nextCode;
+		this.sentColumn = engine.getColumn();
+		this.sentRow = engine.getRow();
+		this.sentRotation = engine.getRotation();
+		this.sentTop = top;
+	}
+}
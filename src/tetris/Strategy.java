@@ -0,0 +1,13 @@
+/**
+ * Something that picks the inputs for a game played without a keyboard
+ */
+package tetris;
+
+public interface Strategy {
+	/**
+	 * Picks the input for the next step
+	 * @param engine -- game being played
+	 * @return -- the input, null for none
+	 */
+	Input next(GameEngine engine);
+}
@@ -0,0 +1,244 @@
+/**
+ * Shared tick scheduler of the game server. All sessions tick on one fixed
+ * time grid, a session added between two ticks joins at the next one, so the
+ * sessions due in a tick run back to back in one batch instead of each waking
+ * up on its own. The sessions are spread over a few worker threads, one shard
+ * each, every shard runs its whole batch once per tick on the same grid. A
+ * late shard catches up a bounded number of ticks and drops the rest, the
+ * way the game loop does. How late each batch starts against its planned
+ * time(the tick lag), how long a batch runs and how long a key waits for its
+ * tick go into histograms per shard. Every shard has a pool of direct buffers
+ * that its sessions write their messages into.
+ */
+package tetris;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class TickScheduler {
+
+	private long tickNanos;
+	private int maxCatchUp;
+	private int bufferBytes;
+	private Shard[] shards;
+	private AtomicInteger nextShard = new AtomicInteger();
+	private volatile boolean running;
+	private long start;		//System.nanoTime of the first tick
+
+	/**
+	 * Creates a scheduler
+	 * @param tickRate -- ticks per second
+	 * @param workers -- threads, each runs a shard of the sessions
+	 * @param maxCatchUp -- most ticks run back to back when a shard is late
+	 * @param bufferBytes -- size of the pooled buffers, the largest message of a session
+	 */
+	public TickScheduler(double tickRate, int workers, int maxCatchUp, int bufferBytes){
+		this.tickNanos = (long)(1e9 / tickRate);
+		this.maxCatchUp = maxCatchUp;
+		this.bufferBytes = bufferBytes;
+		this.shards = new Shard[Math.max(1, workers)];
+		for(int i = 0; i < shards.length; i++)
+		{
+			shards[i] = new Shard(i);
+		}
+	}
+	/**
+	 * One worker thread and the sessions it ticks
+	 */
+	private class Shard implements Runnable {
+		private int index;
+		private ArrayList<GameSession> sessions = new ArrayList<>();	//only touched by the worker
+		private ConcurrentLinkedQueue<GameSession> joining = new ConcurrentLinkedQueue<>();
+		private volatile int size;
+		private volatile boolean resetting;
+		private volatile long ticks, droppedTicks, sessionTicks;
+		private LatencyHistogram lag = new LatencyHistogram("tickLag");
+		private LatencyHistogram batch = new LatencyHistogram("batch");
+		private LatencyHistogram inputDelay = new LatencyHistogram("inputDelay");
+		private BufferPool pool = new BufferPool(bufferBytes);
+
+		private Shard(int index){
+			this.index = index;
+		}
+		@Override
+		public void run(){
+			long nextTick = start;
+			while(running)
+			{
+				long now = System.nanoTime();
+				for(int caught = 0; now >= nextTick && caught < maxCatchUp; caught++)
+				{
+					lag.record(now - nextTick);
+					tick();
+					nextTick += tickNanos;
+					long done = System.nanoTime();
+					batch.record(done - now);
+					now = done;
+				}
+				if(now >= nextTick)		//too far behind, start over from now
+				{
+					long behind = (now - nextTick) / tickNanos + 1;
+					droppedTicks += behind;
+					nextTick += behind * tickNanos;
+				}
+
+				long remaining;
+				while((remaining = nextTick - System.nanoTime()) > 0 && running)
+				{
+					LockSupport.parkNanos(remaining);
+				}
+			}
+			for(GameSession session = joining.poll(); session != null; session = joining.poll())	//added after the last tick
+			{
+				sessions.add(session);
+			}
+			for(GameSession session : sessions)
+			{
+				session.close();
+				session.recycle(pool);
+			}
+		}
+		/**
+		 * Runs the batch of one tick: the new sessions join, the closed ones
+		 * leave and the rest tick in order
+		 */
+		private void tick(){
+			if(resetting)
+			{
+				lag.reset();
+				batch.reset();
+				inputDelay.reset();
+				this.resetting = false;
+			}
+			for(GameSession session = joining.poll(); session != null; session = joining.poll())
+			{
+				sessions.add(session);
+			}
+
+			int count = sessions.size();
+			for(int i = 0; i < count; i++)
+			{
+				GameSession session = sessions.get(i);
+				if(session.isClosed())
+				{
+					session.recycle(pool);
+					sessions.set(i--, sessions.get(--count));	//the last one takes its place
+					sessions.remove(count);
+					continue;
+				}
+				try
+				{
+					session.tick(inputDelay, pool);
+				}
+				catch(RuntimeException e)	//one broken game must not stop the others
+				{
+					System.out.println("session closed: " + e);
+					session.close();
+				}
+			}
+			this.size = count;
+			sessionTicks += count;
+			ticks++;
+		}
+	}
+	/**
+	 * Starts the worker threads, the first tick is right away
+	 */
+	public void start(){
+		this.running = true;
+		this.start = System.nanoTime();
+		for(Shard shard : shards)
+		{
+			Thread thread = new Thread(shard, "tick-" + shard.index);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+	/**
+	 * Stops the workers after their current batch, they close their sessions,
+	 * the ones still waiting to join included
+	 */
+	public void stop(){
+		this.running = false;
+	}
+	/**
+	 * Adds a session, it ticks from the next tick of its shard on. May be called
+	 * from any thread, a session added once the scheduler stopped is closed.
+	 * @param session -- session
+	 */
+	public void add(GameSession session){
+		shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)].joining.add(session);
+		if(!running)	//its shard may have closed the joining ones already
+			session.close();
+	}
+	/**
+	 * Gets the time between two ticks
+	 * @return -- nanoseconds
+	 */
+	public long getTickNanos(){
+		return tickNanos;
+	}
+	/**
+	 * Gets the number of sessions ticking, as of the last tick of every shard
+	 * @return -- sessions
+	 */
+	public int getSessionCount(){
+		int count = 0;
+		for(Shard shard : shards)
+		{
+			count += shard.size;
+		}
+		return count;
+	}
+	/**
+	 * Gets the number of session ticks run, a batch of n sessions counts n
+	 * @return -- session ticks of all shards
+	 */
+	public long getSessionTicks(){
+		long total = 0;
+		for(Shard shard : shards)
+		{
+			total += shard.sessionTicks;
+		}
+		return total;
+	}
+	/**
+	 * Gets the number of ticks given up because a shard was too far behind
+	 * @return -- dropped ticks of all shards
+	 */
+	public long getDroppedTicks(){
+		long dropped = 0;
+		for(Shard shard : shards)
+		{
+			dropped += shard.droppedTicks;
+		}
+		return dropped;
+	}
+	/**
+	 * Clears the histograms, every shard does it at the start of its next tick
+	 */
+	public void resetStats(){
+		for(Shard shard : shards)
+		{
+			shard.resetting = true;
+		}
+	}
+	/**
+	 * Gets the tick lag, batch time and input delay of every shard
+	 * @return -- one line per histogram and shard
+	 */
+	public String getReport(){
+		StringBuilder report = new StringBuilder();
+		for(Shard shard : shards)
+		{
+			report.append(String.format("shard %d: %d sessions, %d ticks, %d dropped, %d buffers%n", shard.index, shard.size, shard.ticks,
+					shard.droppedTicks, shard.pool.getAllocated()));
+			report.append("  ").append(shard.lag).append(System.lineSeparator());
+			report.append("  ").append(shard.batch).append(System.lineSeparator());
+			report.append("  ").append(shard.inputDelay).append(System.lineSeparator());
+		}
+		return report.toString();
+	}
+}
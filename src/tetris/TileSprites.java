@@ -0,0 +1,133 @@
+/**
+ * Pre-rendered tiles. Every piece gets a sprite, plus a see-through one for the
+ * ghost, drawn once with the shaded indent and then copied with one drawImage.
+ * The sprites are compatible images of the graphics configuration they are
+ * drawn to, so Java2D can keep them in video memory, and they are made again
+ * when the configuration changes(the window moves to another screen). A grid
+ * color bakes the top and left grid lines into the sprites, so a tile drawn
+ * over the grid looks the same as one that had the grid drawn over it.
+ */
+package tetris;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+public class TileSprites {
+
+	private static final int ghostAlpha = 20;
+
+	private int size, indent;
+	private Color grid;						//null for no grid lines
+	private GraphicsConfiguration config;	//configuration the sprites were made for
+	private BufferedImage[] tiles;
+	private BufferedImage[] ghosts;
+
+	/**
+	 * Creates an empty cache without grid lines, the sprites are made on the first validate
+	 * @param size -- width and height of a tile
+	 * @param indent -- width of the shaded edge
+	 */
+	public TileSprites(int size, int indent){
+		this(size, indent, null);
+	}
+	/**
+	 * Creates an empty cache, the sprites are made on the first validate
+	 * @param size -- width and height of a tile
+	 * @param indent -- width of the shaded edge
+	 * @param grid -- color of the top and left grid lines, null for none
+	 */
+	public TileSprites(int size, int indent, Color grid){
+		this.size = size;
+		this.indent = indent;
+		this.grid = grid;
+	}
+	/**
+	 * Draws the tile of a piece
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param g -- graphics object
+	 */
+	public void drawTile(Piece type, int x, int y, Graphics g){
+		g.drawImage(tiles[type.ordinal()], x, y, null);
+	}
+	/**
+	 * Draws the ghost tile of a piece
+	 * @param type -- specific piece
+	 * @param x -- x coordinate
+	 * @param y -- y coordinate
+	 * @param g -- graphics object
+	 */
+	public void drawGhost(Piece type, int x, int y, Graphics g){
+		g.drawImage(ghosts[type.ordinal()], x, y, null);
+	}
+	/**
+	 * Makes the sprites again if the screen graphics are not the ones they were
+	 * made for. Called once per paint, before any tile is drawn.
+	 * @param g -- graphics object of the panel
+	 */
+	public void validate(Graphics g){
+		validate((g instanceof Graphics2D) ? ((Graphics2D)g).getDeviceConfiguration() : null);
+	}
+	/**
+	 * Makes the sprites again if the graphics configuration is not the one they were made for
+	 * @param current -- configuration of the screen, null for plain images
+	 * @return -- if the sprites were made again
+	 */
+	public boolean validate(GraphicsConfiguration current){
+		if(tiles != null && current == config)
+			return false;
+
+		Piece[] pieces = Piece.values();
+		this.config = current;
+		this.tiles = new BufferedImage[pieces.length];
+		this.ghosts = new BufferedImage[pieces.length];
+
+		for(Piece type : pieces)
+		{
+			Color base = type.getColor();
+			tiles[type.ordinal()] = render(base, type.getLighter(), type.getDarker(), Transparency.OPAQUE);
+
+			base = new Color(base.getRed(), base.getGreen(), base.getBlue(), ghostAlpha);
+			ghosts[type.ordinal()] = render(base, base.brighter(), base.darker(), Transparency.TRANSLUCENT);
+		}
+		return true;
+	}
+	/**
+	 * Draws one sprite
+	 * @param base -- base color
+	 * @param light -- light color
+	 * @param dark -- dark color
+	 * @param transparency -- Transparency.OPAQUE or Transparency.TRANSLUCENT
+	 * @return -- sprite
+	 */
+	private BufferedImage render(Color base, Color light, Color dark, int transparency){
+		BufferedImage image = (config != null) ? config.createCompatibleImage(size, size, transparency)
+				: new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics g = image.getGraphics();
+
+		g.setColor(base);
+		g.fillRect(0, 0, size, size);
+		g.setColor(dark);
+		g.fillRect(0, size - indent, size, indent);
+		g.fillRect(size - indent, 0, indent, size);	//indent shading
+		g.setColor(light);
+		for(int i = 0; i < indent; i++)
+		{
+			g.drawLine(0, i, size - i - 1, i);
+			g.drawLine(i, 0, i, size - i - 1);
+		}
+		if(grid != null)
+		{
+			g.setColor(grid);
+			g.drawLine(0, 0, size - 1, 0);
+			g.drawLine(0, 0, 0, size - 1);
+		}
+		g.dispose();
+		return image;
+	}
+}
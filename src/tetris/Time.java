@@ -0,0 +1,132 @@
+/**
+ * Handles everything involved with timing. The time comes from a Clock and is
+ * counted in whole nanoseconds, so the left over time of a cycle never drifts.
+ */
+package tetris;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class Time{
+
+	private Clock clock;
+	private long nanoNumPerRound;	
+	private long lastUpdate;	
+	private int pastNumCycles;		
+	private long remainingTime;		
+	private boolean isPaused;
+	
+	/**
+	 * Gets the current time of the clock
+	 * @return -- current time in nanoseconds
+	 */
+	private long getCurrentTime(){
+		return clock.nanoTime();
+	}
+	/**
+	 * Sets the number of cycles per second.
+	 * @param cyclesPerSecond -- cycles per second
+	 */
+	public void setCyclesPerSecond(float cyclesPerSecond) {
+		this.nanoNumPerRound = Math.max(1L, Math.round(1e9 / cyclesPerSecond));
+	}
+	/**
+	 * Creates a new time on the wall clock and sets cycles
+	 * @param cyclesPerSecond -- number of cycles per second.
+	 */
+	public Time(float cyclesPerSecond) {
+		this(cyclesPerSecond, Clock.wall);
+	}
+	/**
+	 * Creates a new time and sets cycles
+	 * @param cyclesPerSecond -- number of cycles per second.
+	 * @param clock -- source of the time
+	 */
+	public Time(float cyclesPerSecond, Clock clock) {
+		this.clock = clock;
+		setCyclesPerSecond(cyclesPerSecond);
+		reset();
+	}
+	/**
+	 * Pauses the timer. Some methods don't operate during pause.
+	 * @param paused -- should this be paused
+	 */
+	public void setPaused(boolean toPause){
+		this.isPaused = toPause;
+	}
+	/**
+	 * Checks if the clock is paused
+	 * @return -- if is paused
+	 */
+	public boolean isPaused(){
+		return isPaused;
+	}
+	/**
+	 * Checks to see if a cycle has elapsed and decrements accordingly
+	 * @return -- if a cycle has finished
+	 */
+	public boolean hasCycleFinished(){
+		if(pastNumCycles > 0)
+		{
+			this.pastNumCycles--;
+			return true;
+		}
+		return false;
+	}
+	/**
+	 * Checks to see if a cycle has elapsed, but doesn't decrement
+	 * @return -- if a cycle has finished
+	 */
+	public boolean peekElapsedCycle() {
+		return (pastNumCycles > 0);
+	}
+	/**
+	 * Resets the timing stats
+	 */
+	public void reset(){
+		this.isPaused = false;
+		this.pastNumCycles = 0;
+		this.remainingTime = 0;
+		this.lastUpdate = getCurrentTime();	
+	}
+	/**
+	 * Updates the timing stats.  Certain stats only get processed while the game is running
+	 */
+	public void update(){
+		long current = getCurrentTime();
+		long delta = (current - lastUpdate) + remainingTime;
+
+		if(!isPaused)
+		{
+			this.pastNumCycles += (int)(delta / nanoNumPerRound);
+			this.remainingTime = delta % nanoNumPerRound;
+		}
+
+		this.lastUpdate = current;
+	}
+	/**
+	 * Writes the timer state for a replay keyframe, the time since the last
+	 * update is kept instead of the clock reading
+	 * @param out -- output
+	 * @throws IOException -- if the output fails
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeLong(nanoNumPerRound);
+		out.writeLong(getCurrentTime() - lastUpdate);
+		out.writeInt(pastNumCycles);
+		out.writeLong(remainingTime);
+		out.writeBoolean(isPaused);
+	}
+	/**
+	 * Restores the timer state of a replay keyframe on the current clock
+	 * @param in -- keyframe, positioned at the timer state
+	 */
+	void read(ByteBuffer in){
+		this.nanoNumPerRound = in.getLong();
+		this.lastUpdate = getCurrentTime() - in.getLong();
+		this.pastNumCycles = in.getInt();
+		this.remainingTime = in.getLong();
+		this.isPaused = in.get() != 0;
+	}
+}
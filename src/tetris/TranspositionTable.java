@@ -0,0 +1,225 @@
+/**
+ * Fixed size cache of evaluated positions, keyed by Zobrist hash. Entries live
+ * in two primitive arrays and are grouped in buckets of four slots. A full
+ * bucket gives up the entry of an older search first and then the one with the
+ * lowest depth, so deep results survive the flood of shallow ones.
+ */
+package tetris;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+	private static final int bucketSize = 4;
+	private static final int entryBytes = 16;	//one long of key, one long of data
+
+	public static final int noPlacement = 0xFFFFFF;
+
+	private long[] keys;
+	private long[] data;		//score bits << 32 | placement << 8 | depth << 4 | age
+	private int mask;			//bucket index mask
+	private int age;
+	private int found;			//slot of the last hit
+
+	private long probes, hits, stores, evictions, filled;
+
+	/**
+	 * Creates a table that fits in the memory budget
+	 * @param bytes -- memory budget, rounded down to a power of two number of entries
+	 */
+	public TranspositionTable(long bytes){
+		long entries = Long.highestOneBit(Math.max(bytes / entryBytes, bucketSize));
+		entries = Math.min(entries, 1L << 30);
+		this.keys = new long[(int)entries];
+		this.data = new long[(int)entries];
+		this.mask = (int)(entries / bucketSize) - 1;
+	}
+	/**
+	 * Starts a new search, entries of older searches become the first to go
+	 */
+	public void newSearch(){
+		this.age = (age + 1) & 0xF;
+	}
+	/**
+	 * Empties the table and the statistics
+	 */
+	public void clear(){
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, 0L);
+		this.probes = hits = stores = evictions = filled = 0;
+	}
+	private int bucket(long key){
+		return (int)(key ^ (key >>> 32)) & mask;
+	}
+	/**
+	 * Looks a position up. On a hit the entry is read with getScore,
+	 * getPlacement and getDepth.
+	 * @param key -- position hash
+	 * @param depth -- smallest depth that is good enough
+	 * @return -- if a good enough entry was found
+	 */
+	public boolean probe(long key, int depth){
+		probes++;
+		int base = bucket(key) * bucketSize;
+
+		for(int slot = base; slot < base + bucketSize; slot++)
+		{
+			if(keys[slot] == key && data[slot] != 0 && depthOf(data[slot]) >= depth)
+			{
+				hits++;
+				found = slot;
+				return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * Gets the score of the last hit
+	 * @return -- score
+	 */
+	public float getScore(){
+		return Float.intBitsToFloat((int)(data[found] >>> 32));
+	}
+	/**
+	 * Gets the placement of the last hit
+	 * @return -- packed placement, noPlacement if none was stored
+	 */
+	public int getPlacement(){
+		return (int)(data[found] >>> 8) & 0xFFFFFF;
+	}
+	/**
+	 * Gets the depth of the last hit
+	 * @return -- depth
+	 */
+	public int getDepth(){
+		return depthOf(data[found]);
+	}
+	private static int depthOf(long entry){
+		return (int)(entry >>> 4) & 0xF;
+	}
+	private static int ageOf(long entry){
+		return (int)entry & 0xF;
+	}
+	/**
+	 * Stores a position, replacing the least valuable slot of its bucket
+	 * @param key -- position hash
+	 * @param score -- score
+	 * @param placement -- packed placement, noPlacement if none
+	 * @param depth -- pieces searched, 1 to 15
+	 */
+	public void store(long key, float score, int placement, int depth){
+		int base = bucket(key) * bucketSize;
+		int victim = -1, victimRank = Integer.MAX_VALUE;
+
+		for(int slot = base; slot < base + bucketSize; slot++)
+		{
+			long entry = data[slot];
+			if(entry == 0 || keys[slot] == key)
+			{
+				victim = slot;
+				break;
+			}
+			int rank = ((ageOf(entry) == age) ? 256 : 0) + depthOf(entry);	//old searches first, then shallow ones
+			if(rank < victimRank)
+			{
+				victimRank = rank;
+				victim = slot;
+			}
+		}
+
+		if(data[victim] == 0)
+			filled++;
+		else if(keys[victim] != key)
+			evictions++;
+		else if(depthOf(data[victim]) > depth && ageOf(data[victim]) == age)
+			return;	//keep the deeper result of this search
+
+		stores++;
+		keys[victim] = key;
+		data[victim] = ((long)Float.floatToRawIntBits(score) << 32) | ((long)(placement & 0xFFFFFF) << 8)
+				| ((depth & 0xF) << 4) | age;
+	}
+	/**
+	 * Packs a placement into 24 bits, for boards up to 1019 columns and 4091 rows
+	 * @param col -- column
+	 * @param row -- row
+	 * @param rotation -- rotation
+	 * @return -- packed placement
+	 */
+	public static int packPlacement(int col, int row, int rotation){
+		return ((col + 4) & 0x3FF) | (((row + 4) & 0xFFF) << 10) | ((rotation & 0x3) << 22);
+	}
+	/**
+	 * Gets the column of a packed placement
+	 * @param placement -- packed placement
+	 * @return -- column
+	 */
+	public static int placementColumn(int placement){
+		return (placement & 0x3FF) - 4;
+	}
+	/**
+	 * Gets the row of a packed placement
+	 * @param placement -- packed placement
+	 * @return -- row
+	 */
+	public static int placementRow(int placement){
+		return ((placement >> 10) & 0xFFF) - 4;
+	}
+	/**
+	 * Gets the rotation of a packed placement
+	 * @param placement -- packed placement
+	 * @return -- rotation
+	 */
+	public static int placementRotation(int placement){
+		return (placement >> 22) & 0x3;
+	}
+	/**
+	 * Gets the number of entries the table holds
+	 * @return -- capacity
+	 */
+	public int getCapacity(){
+		return keys.length;
+	}
+	/**
+	 * Gets the number of lookups
+	 * @return -- probes
+	 */
+	public long getProbes(){
+		return probes;
+	}
+	/**
+	 * Gets the number of lookups that found an entry
+	 * @return -- hits
+	 */
+	public long getHits(){
+		return hits;
+	}
+	/**
+	 * Gets the share of lookups that found an entry
+	 * @return -- hit rate from 0 to 1
+	 */
+	public double getHitRate(){
+		return (probes == 0) ? 0 : (double)hits / probes;
+	}
+	/**
+	 * Gets the number of entries written
+	 * @return -- stores
+	 */
+	public long getStores(){
+		return stores;
+	}
+	/**
+	 * Gets the number of entries that pushed out another position
+	 * @return -- evictions
+	 */
+	public long getEvictions(){
+		return evictions;
+	}
+	/**
+	 * Gets the number of used slots
+	 * @return -- filled slots
+	 */
+	public long getFilled(){
+		return filled;
+	}
+}
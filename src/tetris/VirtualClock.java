@@ -0,0 +1,21 @@
+/**
+ * Clock that only moves when it is advanced
+ */
+package tetris;
+
+public class VirtualClock implements Clock {
+
+	private long now;
+
+	@Override
+	public long nanoTime(){
+		return now;
+	}
+	/**
+	 * Moves the clock forward
+	 * @param nanos -- nanoseconds to move
+	 */
+	public void advance(long nanos){
+		this.now += nanos;
+	}
+}
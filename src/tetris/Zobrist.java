@@ -0,0 +1,89 @@
+/**
+ * Random keys for Zobrist hashing of boards. A board hash is the XOR of the
+ * keys of its filled tiles, so a lock or a line clear only has to XOR the
+ * tiles that changed. A tile key is mixed from its column and row, so boards
+ * of any size share them, and the keys of the top left 64x64 tiles are kept in
+ * a table since most boards fit in there. The pieces get
+ * keys of their own so the hash of a board can be combined with the current
+ * and next piece.
+ */
+package tetris;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+
+	private static final long cellSeed = 0x2545F4914F6CDD1DL;
+	private static final int tableBits = 6;		//64x64 tiles
+	private static final long[] cells = new long[1 << (tableBits * 2)];
+	private static final long[] currentPieces = new long[Piece.values().length];
+	private static final long[] nextPieces = new long[Piece.values().length];
+
+	static {
+		for(int i = 0; i < cells.length; i++)
+		{
+			cells[i] = mix(i & ((1 << tableBits) - 1), i >>> tableBits);
+		}
+		SplittableRandom random = new SplittableRandom(0x5DEECE66DL);	//fixed, so hashes match between runs
+		for(int i = 0; i < currentPieces.length; i++)
+		{
+			currentPieces[i] = random.nextLong();
+			nextPieces[i] = random.nextLong();
+		}
+	}
+
+	private Zobrist(){
+	}
+	/**
+	 * Gets the key of a filled tile
+	 * @param col -- column
+	 * @param row -- row
+	 * @return -- key
+	 */
+	public static long cell(int col, int row){
+		if(((col | row) >>> tableBits) == 0)
+			return cells[(row << tableBits) | col];
+		return mix(col, row);
+	}
+	/**
+	 * Mixes the key of a tile from its column and row
+	 */
+	private static long mix(int col, int row){
+		long z = cellSeed + (((long)row << 32) | col) * 0x9E3779B97F4A7C15L;	//SplitMix64 finalizer
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	/**
+	 * Gets the XOR of the keys of the filled tiles of 64 columns of a row
+	 * @param row -- row
+	 * @param word -- long of the row
+	 * @param bits -- occupancy of that long(bit n = column 64 * word + n)
+	 * @return -- key
+	 */
+	public static long row(int row, int word, long bits){
+		long key = 0;
+		int offset = word << 6;
+		for(; bits != 0; bits &= bits - 1)
+		{
+			key ^= cell(offset + Long.numberOfTrailingZeros(bits), row);
+		}
+		return key;
+	}
+	/**
+	 * Gets the key of the falling piece
+	 * @param type -- piece
+	 * @return -- key
+	 */
+	public static long current(Piece type){
+		return currentPieces[type.ordinal()];
+	}
+	/**
+	 * Gets the key of the previewed piece
+	 * @param type -- piece
+	 * @return -- key
+	 */
+	public static long next(Piece type){
+		return nextPieces[type.ordinal()];
+	}
+}
@@ -0,0 +1,507 @@
+/**
+ * This class is the Swing window around the game engine. The panels are only
+ * repainted when the engine version changed, an idle game draws nothing.
+ * Started with "active" the game loop draws into a buffer strategy itself,
+ * otherwise Swing repaints the panels. Both ways measure the time from a key
+ * to the frame that shows it. Logic runs at a fixed 50 ticks per second, frames
+ * at their own rate("render=" frames per second, 0 for as often as possible).
+ * Keys are queued by the event thread, which wakes the game loop to apply them
+ * at once, between the ticks if need be. A key going up is never lost: if the
+ * queue is full it waits as a pending bit, which the next key queues first or
+ * the loop takes once it drained the queue, so no key stays held. The panels only draw the snapshots
+ * the engine publishes. Left and right are only reported going down and up,
+ * the auto repeat("das=" delay and "arr=" repeat time in ms) runs on the loop.
+ * The gravity timer runs on a virtual clock that moves 20 ms per engine frame,
+ * "speed=" runs that many engine frames per tick to fast forward the game.
+ * "record=" writes every finished game into a directory, "replay=" plays a
+ * recorded game again instead of taking keys, left and right seek through it.
+ * "columns=" and "rows=" play on a board of another size.
+ * The stages of the loop are timed into latency histograms that can be watched
+ * over JMX, "metrics=" also appends them to a file every 10 seconds.
+ */
+package tetris;
+
+import java.awt.BorderLayout;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.swing.JFrame;
+
+public class playGame extends JFrame {
+	private static final long serialVersionUID = 1L;
+	private static final double tickRate = 50.0;	//logic ticks per second
+	private static final long frameNanos = (long)(1e9 / tickRate);	//game time of one engine frame
+	private static final int maxCatchUp = 5;		//ticks run back to back after a stall
+	private static final long seekFrames = 500;		//10 s of game time per seek key
+	private static final Input[] values = Input.values();
+
+	private GameEngine engine;
+	private GameBoard board;
+	private Menu side;
+	private GameCanvas canvas;			//null when Swing repaints the panels
+	private LatencyProbe probe = new LatencyProbe();
+	private InputQueue inputs = new InputQueue(64);		//keys from the event thread to the game loop
+	private AtomicInteger pendingReleases = new AtomicInteger();	//bit per input ordinal of the key-ups the full queue did not take
+	private volatile long droppedInputs;		//only written by the event thread
+	private AutoPlayer bot;
+	private ReplayPlayer player;		//null unless a replay is played
+	private volatile boolean autoplay;
+	private volatile GameLoop loop;
+	private AutoShift shift;
+	private boolean[] held = new boolean[256];	//keys down, only touched by the event thread
+	private VirtualClock clock = new VirtualClock();
+	private int speed;					//engine frames per tick
+	private boolean botPlaying, falling;	//falling = the last tick moved the piece down a row
+	private long drawnVersion = -1;		//engine version on screen
+	private int drawnOffset;
+	private RenderStats stats = new RenderStats();
+	private GameMetrics metrics = new GameMetrics();
+
+	/**
+	 * Creates the window
+	 * @param buffers -- buffers of the active rendering, 0 to let Swing repaint
+	 * @param speed -- engine frames per tick, 1 for real time
+	 * @param recordTo -- directory the finished games are written to, null to record nothing
+	 * @param replay -- game to play again, null to play
+	 * @param shift -- auto repeat of left and right
+	 * @param columns -- board columns, a replay brings its own
+	 * @param rows -- board rows in play, a replay brings its own
+	 */
+	private playGame(int buffers, int speed, Path recordTo, Replay replay, AutoShift shift, int columns, int rows){
+		super("Tetris");
+		setLayout(new BorderLayout());
+		setDefaultCloseOperation(EXIT_ON_CLOSE);
+		setResizable(false);
+
+		this.speed = speed;
+		this.shift = shift;
+		this.engine = (replay != null) ? new GameEngine(replay.getSeed(), clock, replay.getColumns(), replay.getRows())
+				: new GameEngine(new SplittableRandom().nextLong(), clock, columns, rows);
+		this.board = new GameBoard(engine);	//board and menu
+		this.side = new Menu(engine);
+		this.bot = new AutoPlayer();
+		engine.setMetrics(metrics);
+		board.setMetrics(metrics);
+		side.setMetrics(metrics);
+		if(replay != null)
+			this.player = new ReplayPlayer(replay);
+		else if(recordTo != null)
+			engine.setRecorder(new ReplayRecorder(frameNanos, finished -> save(recordTo, finished)));
+
+		if(buffers > 0)
+		{
+			this.canvas = new GameCanvas(board, side, buffers);
+			add(canvas, BorderLayout.CENTER);
+		}
+		else
+		{
+			board.setProbe(probe);
+			add(board, BorderLayout.CENTER);
+			add(side, BorderLayout.EAST);
+		}
+
+		addKeyListener(new KeyAdapter(){
+
+			@Override
+			public void keyPressed(KeyEvent e) {
+				int code = e.getKeyCode();
+				if(code < held.length)
+				{
+					if(held[code])
+						return;		//OS repeat of a held key
+					held[code] = true;
+				}
+
+				switch(e.getKeyCode()) {
+
+				case KeyEvent.VK_S:
+				case KeyEvent.VK_DOWN:
+					send(Input.SOFT_DROP);
+					break;
+
+				case KeyEvent.VK_SPACE:
+					send(Input.HARD_DROP);
+					break;
+
+				case KeyEvent.VK_A:
+				case KeyEvent.VK_LEFT:
+					send(Input.LEFT);
+					break;
+
+				case KeyEvent.VK_D:
+				case KeyEvent.VK_RIGHT:
+					send(Input.RIGHT);
+					break;
+
+				case KeyEvent.VK_Q:
+					send(Input.ROTATE_LEFT);
+					break;
+
+				case KeyEvent.VK_E:
+					send(Input.ROTATE_RIGHT);
+					break;
+
+				case KeyEvent.VK_P:
+					send(Input.PAUSE);
+					break;
+
+				case KeyEvent.VK_ENTER:
+					send(Input.START);
+					break;
+
+				case KeyEvent.VK_B:
+					autoplay = !autoplay;
+					break;
+
+				}
+			}
+			@Override
+			public void keyReleased(KeyEvent e){
+				if(e.getKeyCode() < held.length)
+					held[e.getKeyCode()] = false;
+				switch(e.getKeyCode()){
+
+				case KeyEvent.VK_S:
+				case KeyEvent.VK_DOWN:
+					send(Input.SOFT_DROP_RELEASE);
+					break;
+
+				case KeyEvent.VK_A:
+				case KeyEvent.VK_LEFT:
+					release(Input.LEFT);
+					break;
+
+				case KeyEvent.VK_D:
+				case KeyEvent.VK_RIGHT:
+					release(Input.RIGHT);
+					break;
+				}
+			}
+		});
+		addFocusListener(new FocusAdapter(){
+
+			@Override
+			public void focusLost(FocusEvent e){	//no key up will come
+				Arrays.fill(held, false);
+				release(Input.LEFT);
+				release(Input.RIGHT);
+				send(Input.SOFT_DROP_RELEASE);
+			}
+		});
+
+		pack();
+		setLocationRelativeTo(null);
+		setVisible(true);
+	}
+
+	/**
+	 * Runs the game loop, it never returns
+	 * @param renderRate -- frames per second, 0 to draw as often as possible
+	 */
+	private void startGame(double renderRate) {
+		this.loop = new GameLoop(tickRate, renderRate, maxCatchUp, this::tick, this::render);
+		loop.setMetrics(metrics);
+		loop.setPoll(this::poll);
+		loop.run();
+	}
+	/**
+	 * Queues a key and wakes the loop to apply it, called on the event thread
+	 * @param input -- the action
+	 */
+	private void send(Input input){
+		offer(input, false);
+	}
+	/**
+	 * Queues a key going up and wakes the loop, called on the event thread
+	 * @param input -- the action of the key
+	 */
+	private void release(Input input){
+		offer(input, true);
+	}
+	/**
+	 * Queues a key, called on the event thread. No key goes in ahead of a key-up
+	 * that is still waiting, a key-up that does not fit waits as well, any other
+	 * key that does not fit is dropped.
+	 * @param input -- the action
+	 * @param released -- true if the key went up
+	 */
+	private void offer(Input input, boolean released){
+		long time = System.nanoTime();
+		if(!offerPending(time) || !inputs.offer(input, released, time))
+		{
+			if(released || input == Input.SOFT_DROP_RELEASE)
+				pendingReleases.accumulateAndGet(1 << input.ordinal(), (bits, bit) -> bits | bit);
+			else
+				droppedInputs++;
+		}
+		GameLoop current = loop;
+		if(current != null)
+			current.wake();
+	}
+	/**
+	 * Queues the key-ups that are waiting, called on the event thread
+	 * @param time -- System.nanoTime
+	 * @return -- false if the queue is full and some still wait
+	 */
+	private boolean offerPending(long time){
+		for(int bits = pendingReleases.getAndSet(0); bits != 0; bits &= bits - 1)
+		{
+			Input input = values[Integer.numberOfTrailingZeros(bits)];
+			if(!inputs.offer(input, input != Input.SOFT_DROP_RELEASE, time))
+			{
+				pendingReleases.accumulateAndGet(bits, (left, more) -> left | more);
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Gets the keys dropped because the queue was full, key-ups are never dropped
+	 * @return -- inputs
+	 */
+	public long getDroppedInputs(){
+		return droppedInputs;
+	}
+	/**
+	 * Writes a finished game, called by the recorder on the game loop
+	 * @param directory -- directory of the replays
+	 * @param replay -- finished game
+	 */
+	private static void save(Path directory, Replay replay){
+		try
+		{
+			System.out.println("replay written to " + ReplayVerifier.write(directory, replay));
+		}
+		catch(IOException e)
+		{
+			System.out.println("replay not written: " + e);
+		}
+	}
+	/**
+	 * Runs on every pass of the loop: the queued keys are applied, left and
+	 * right go to the auto repeat, which moves the piece for every press and
+	 * repeat that is due. The key-ups that found the queue full are applied
+	 * right after the queued keys, before anything queued since is polled. A
+	 * replay takes no keys, left and right seek in it.
+	 * @param now -- System.nanoTime
+	 * @return -- System.nanoTime of the next repeat
+	 */
+	private long poll(long now){
+		if(player != null && engine.isNewGame())
+			player.start(engine);
+
+		for(Input input = inputs.poll(); input != null; input = inputs.poll())
+		{
+			boolean released = inputs.isPolledRelease();
+			boolean horizontal = input == Input.LEFT || input == Input.RIGHT;
+			if(player != null)
+			{
+				if(horizontal && !released)
+					player.seek(engine, clock, player.getFrame(engine) + ((input == Input.LEFT) ? -seekFrames : seekFrames));
+				continue;
+			}
+			if(!released)
+				metrics.inputDelay.since(inputs.getPolledTime());
+			if(horizontal)
+			{
+				if(released)
+					shift.release(input, inputs.getPolledTime());
+				else
+					shift.press(input, inputs.getPolledTime());
+				continue;
+			}
+
+			long before = engine.getVersion();
+			engine.input(input);
+			if(engine.getVersion() != before)
+				probe.input(engine.getVersion(), inputs.getPolledTime());
+		}
+		int pending = pendingReleases.getAndSet(0);	//a key offered after them queues them first, so none is newer
+		if(player == null)
+		{
+			for(; pending != 0; pending &= pending - 1)
+			{
+				Input input = values[Integer.numberOfTrailingZeros(pending)];
+				if(input == Input.SOFT_DROP_RELEASE)
+					engine.input(input);
+				else
+					shift.release(input, now);
+			}
+		}
+
+		if(player == null)
+		{
+			shift.update(engine, now);
+			if(shift.wasTapped())
+				probe.input(engine.getVersion(), shift.getPressTime());
+		}
+		engine.publish();
+		return shift.getNextMove(now);
+	}
+	/**
+	 * One logic tick, the game clock moves one frame per engine frame and the
+	 * bot gets a move in every frame, so fast forward plays by the same rules.
+	 * A replay takes the place of the keys and the bot. The new state is
+	 * published at the end.
+	 */
+	private void tick(){
+		long count = engine.getPieceCount();
+		int row = engine.getRow();
+
+		for(int i = 0; i < speed; i++)
+		{
+			if(player != null)
+			{
+				if(!player.isDone(engine))
+					player.feed(engine);
+			}
+			else if(autoplay)
+				bot.act(engine);
+			else if(botPlaying)
+				bot.release(engine);
+			botPlaying = autoplay;
+
+			clock.advance(frameNanos);
+			engine.frame();
+		}
+		falling = engine.isRunning() && engine.getPieceCount() == count && engine.getRow() == row + 1;
+		engine.publish();
+	}
+	/**
+	 * One frame, drawn if the game changed or the piece is still sliding into its new row
+	 * @param alpha -- passed fraction of the current tick
+	 */
+	private void render(double alpha){
+		int offset = falling ? (int)((1.0 - alpha) * GameBoard.tileSize) : 0;
+		long version = engine.getSnapshot().getVersion();
+		boolean paint = version != drawnVersion || offset != drawnOffset || (canvas != null && canvas.isExposed());
+		stats.frame(paint, engine.isRunning());
+		if(paint)
+		{
+			board.setFallOffset(offset);
+			renderGame(version);
+			drawnVersion = version;
+			drawnOffset = offset;
+		}
+	}
+	/**
+	 * New Render
+	 * @param version -- engine version being drawn
+	 */
+	private void renderGame(long version){
+		if(canvas != null)
+		{
+			long start = System.nanoTime();
+			canvas.render();
+			probe.presented(version, start);
+		}
+		else
+		{
+			board.repaint();
+			side.repaint();
+		}
+	}
+	/**
+	 * Gets the frame counters
+	 * @return -- counters of drawn, skipped and idle frames
+	 */
+	public RenderStats getRenderStats(){
+		return stats;
+	}
+	/**
+	 * Gets the latency histograms
+	 * @return -- histograms
+	 */
+	public GameMetrics getMetrics(){
+		return metrics;
+	}
+	/**
+	 * Gets the key to screen latency and frame time measurements
+	 * @return -- probe
+	 */
+	public LatencyProbe getProbe(){
+		return probe;
+	}
+	/**
+	 * main
+	 * @param args -- "active", the number of buffers(2 or 3) for active rendering, "render=" frames per second
+	 * "speed=" times real time(1 to 1000), "record=" directory of the replays, "replay=" file to play
+	 * "metrics=" file the latency histograms are appended to, "das=" and "arr=" auto repeat delay and
+	 * repeat time in ms, "columns=" and "rows=" board size
+	 */
+	public static void main(String[] args){
+		int buffers = 0;
+		double renderRate = 50.0;
+		int speed = 1;
+		Path recordTo = null;
+		Replay replay = null;
+		Path metricsTo = null;
+		double das = 167, arr = 33;
+		int columns = BoardModel.numOfColums, rows = BoardModel.activeNumRows;
+		for(String arg : args)
+		{
+			if(arg.equals("active"))
+				buffers = Math.max(buffers, 2);
+			else if(arg.startsWith("speed="))
+				speed = Math.max(1, Math.min(1000, Integer.parseInt(arg.substring("speed=".length()))));
+			else if(arg.startsWith("render="))
+				renderRate = Double.parseDouble(arg.substring("render=".length()));
+			else if(arg.startsWith("das="))
+				das = Double.parseDouble(arg.substring("das=".length()));
+			else if(arg.startsWith("arr="))
+				arr = Double.parseDouble(arg.substring("arr=".length()));
+			else if(arg.startsWith("columns="))
+				columns = Integer.parseInt(arg.substring("columns=".length()));
+			else if(arg.startsWith("rows="))
+				rows = Integer.parseInt(arg.substring("rows=".length()));
+			else if(arg.startsWith("metrics="))
+				metricsTo = Paths.get(arg.substring("metrics=".length()));
+			else if(arg.startsWith("record="))
+				recordTo = Paths.get(arg.substring("record=".length()));
+			else if(arg.startsWith("replay="))
+			{
+				try
+				{
+					replay = ReplayVerifier.read(Paths.get(arg.substring("replay=".length())));
+				}
+				catch(IOException e)
+				{
+					System.out.println("replay not read: " + e);
+					return;
+				}
+			}
+			else
+				buffers = Integer.parseInt(arg);
+		}
+
+		playGame tetris = new playGame(buffers, speed, recordTo, replay, new AutoShift((long)(das * 1e6), (long)(arr * 1e6)),
+				columns, rows);
+		try
+		{
+			tetris.getMetrics().register();
+		}
+		catch(JMException e)
+		{
+			System.out.println("metrics not registered: " + e);
+		}
+		if(metricsTo != null)
+			tetris.getMetrics().startDump(metricsTo, 10);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			System.out.println(tetris.getRenderStats());
+			System.out.println(tetris.getProbe());
+			System.out.println(tetris.getMetrics());
+			if(tetris.loop != null)
+				System.out.println(tetris.loop.getJitterReport());
+		}));
+		tetris.startGame(renderRate);
+	}
+}